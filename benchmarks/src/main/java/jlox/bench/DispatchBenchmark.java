@@ -0,0 +1,74 @@
+package jlox.bench;
+
+import jlox.Jlox;
+import jlox.interpreter.Interpreter;
+import jlox.interpreter.OutputSink;
+import jlox.parser.Expr;
+import jlox.parser.Stmt;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// The interpreter's instanceof chain over the sealed node types against plain accept() double dispatch,
+// on the same resolved programs. Each benchmark method runs in its own fork, so neither pollutes the
+// other's type profile.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DispatchBenchmark {
+
+    private static final Map<String, String> SCRIPTS = Map.of(
+            "fib", Sources.FIB,
+            "loop", Sources.LOOP,
+            "objects", Sources.OBJECTS);
+
+    private static final OutputSink DISCARD = new OutputSink(OutputStream.nullOutputStream(),
+            StandardCharsets.UTF_8, OutputSink.FlushPolicy.FULL);
+
+    // Sends every node through accept(), as the interpreter did before the chain.
+    static final class VisitorInterpreter extends Interpreter {
+
+        @Override
+        protected void execute(Stmt statement) {
+            statement.accept(this);
+        }
+
+        @Override
+        public Object evaluate(Expr expr) {
+            return expr.accept(this);
+        }
+    }
+
+    @Param({"fib", "loop", "objects"})
+    private String script;
+
+    private List<Stmt> statements;
+
+    @Setup
+    public void setUp(){
+        statements = Jlox.prepare(SCRIPTS.get(script)).getStatements();
+    }
+
+    private Interpreter run(Interpreter interpreter){
+        interpreter.setOutput(DISCARD);
+        interpreter.execute(statements);
+        return interpreter;
+    }
+
+    @Benchmark
+    public Interpreter instanceofChain(){
+        return run(new Interpreter());
+    }
+
+    @Benchmark
+    public Interpreter visitor(){
+        return run(new VisitorInterpreter());
+    }
+}
@@ -0,0 +1,51 @@
+package jlox.bench;
+
+import jlox.env.Environment;
+import jlox.scanner.Scanner;
+import jlox.scanner.Token;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EnvironmentBenchmark {
+
+    private Environment outer;
+    private Environment inner;
+    private Token name;
+    private Long value;
+
+    @Setup
+    public void setUp(){
+        name = new Scanner("x").scanTokens().get(0);
+        value = 42L;
+        outer = new Environment();
+        outer.define(name.getSymbol(), value);
+        inner = new Environment(new Environment(outer));
+    }
+
+    @Benchmark
+    public Object get(){
+        return outer.get(name);
+    }
+
+    @Benchmark
+    public void assign(){
+        outer.assign(name, value);
+    }
+
+    @Benchmark
+    public Object getLocal(){
+        return inner.getLocal(2, name.getSymbol());
+    }
+
+    @Benchmark
+    public void assignLocal(){
+        inner.assignLocal(2, name, value);
+    }
+}
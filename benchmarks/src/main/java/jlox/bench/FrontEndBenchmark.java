@@ -0,0 +1,51 @@
+package jlox.bench;
+
+import jlox.parser.Parser;
+import jlox.parser.Stmt;
+import jlox.perf.Workloads;
+import jlox.resolver.Resolver;
+import jlox.scanner.Scanner;
+import jlox.scanner.Token;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FrontEndBenchmark {
+
+    @Param({"10", "100"})
+    private int units;
+
+    private String source;
+    private List<Token> tokens;
+    private List<Stmt> statements;
+
+    @Setup
+    public void setUp(){
+        source = Workloads.generated(units);
+        tokens = new Scanner(source).scanTokens();
+        statements = new Parser(tokens).parse();
+    }
+
+    @Benchmark
+    public List<Token> scanTokens(){
+        return new Scanner(source).scanTokens();
+    }
+
+    @Benchmark
+    public List<Stmt> parse(){
+        return new Parser(tokens).parse();
+    }
+
+    @Benchmark
+    public List<Stmt> resolve(){
+        new Resolver().resolve(statements);
+        return statements;
+    }
+}
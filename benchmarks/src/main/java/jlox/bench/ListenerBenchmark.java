@@ -0,0 +1,63 @@
+package jlox.bench;
+
+import jlox.Jlox;
+import jlox.interpreter.Instrumentation;
+import jlox.interpreter.Interpreter;
+import jlox.interpreter.InterpreterListener;
+import jlox.interpreter.OutputSink;
+import jlox.parser.Stmt;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// The cost of listener hooks: a plain interpreter against an instrumented one with a listener that
+// ignores every event. Each method runs in its own fork, so the plain run never sees the subclass.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ListenerBenchmark {
+
+    private static final Map<String, String> SCRIPTS = Map.of(
+            "fib", Sources.FIB,
+            "loop", Sources.LOOP,
+            "objects", Sources.OBJECTS);
+
+    private static final OutputSink DISCARD = new OutputSink(OutputStream.nullOutputStream(),
+            StandardCharsets.UTF_8, OutputSink.FlushPolicy.FULL);
+
+    private static final InterpreterListener IGNORE = new InterpreterListener() {
+    };
+
+    @Param({"fib", "loop", "objects"})
+    private String script;
+
+    private List<Stmt> statements;
+
+    @Setup
+    public void setUp(){
+        statements = Jlox.prepare(SCRIPTS.get(script)).getStatements();
+    }
+
+    private Interpreter run(Interpreter interpreter){
+        interpreter.setOutput(DISCARD);
+        interpreter.execute(statements);
+        return interpreter;
+    }
+
+    @Benchmark
+    public Interpreter plain(){
+        return run(new Interpreter());
+    }
+
+    @Benchmark
+    public Interpreter ignoringListener(){
+        return run(Instrumentation.newInterpreter(IGNORE));
+    }
+}
@@ -0,0 +1,39 @@
+package jlox.bench;
+
+import jlox.Jlox;
+import jlox.interpreter.Interpreter;
+import jlox.script.PreparedScript;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Whole-script runs, dominated by node dispatch, variable access and calls.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScriptBenchmark {
+
+    private static final Map<String, String> SCRIPTS = Map.of(
+            "fib", Sources.FIB,
+            "loop", Sources.LOOP,
+            "objects", Sources.OBJECTS);
+
+    @Param({"fib", "loop", "objects"})
+    private String script;
+
+    private PreparedScript prepared;
+
+    @Setup
+    public void setUp(){
+        prepared = Jlox.prepare(SCRIPTS.get(script));
+    }
+
+    @Benchmark
+    public Interpreter execute(){
+        return prepared.execute();
+    }
+}
@@ -0,0 +1,26 @@
+package jlox.bench;
+
+public final class Sources {
+
+    public static final String FIB = """
+            fun fib(n) { if (n < 2) return n; return fib(n - 1) + fib(n - 2); }
+            var result = fib(20);
+            """;
+
+    public static final String LOOP = """
+            var sum = 0;
+            for(var i = 0; i < 100000; i = i + 1) sum = sum + i;
+            """;
+
+    public static final String OBJECTS = """
+            class Vec {
+                init(x, y){ this.x = x; this.y = y; }
+                add(other){ return Vec(this.x + other.x, this.y + other.y); }
+            }
+            var acc = Vec(0, 0);
+            for(var i = 0; i < 10000; i = i + 1) acc = acc.add(Vec(1, 2));
+            """;
+
+    private Sources() {
+    }
+}
@@ -0,0 +1,89 @@
+package jlox.interpreter;
+
+import jlox.Jlox;
+import jlox.parser.Expr;
+import jlox.parser.Parser;
+import jlox.parser.Stmt;
+import jlox.runtime.LoxString;
+import jlox.scanner.Scanner;
+import jlox.scanner.Token;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Lives in jlox.interpreter to reach the runtime pieces that scripts only see indirectly.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class InterpreterBenchmark {
+
+    private static final String SOURCE = """
+            class Point {
+                init(x, y){ this.x = x; this.y = y; }
+                sum(){ return this.x + this.y; }
+            }
+            var point = Point(1, 2);
+            """;
+
+    @State(Scope.Thread)
+    public static class BinaryState {
+        @Param({"1 + 2", "1.5 + 2.25", "6 * 7", "7 / 2", "1 < 2", "\"lox\" + \"string\""})
+        private String binary;
+
+        private Expr.Binary expr;
+
+        @Setup
+        public void setUp(){
+            Stmt.Expression statement = (Stmt.Expression) new Parser(new Scanner(binary + ";").scanTokens()).parse().get(0);
+            expr = (Expr.Binary) statement.getExpression();
+        }
+    }
+
+    private Interpreter interpreter;
+    private LoxClass pointClass;
+    private LoxInstance point;
+    private Token sum;
+    private Object[] arguments;
+
+    @Setup
+    public void setUp(){
+        interpreter = Jlox.prepare(SOURCE).execute();
+        pointClass = (LoxClass) interpreter.getGlobal("Point");
+        point = (LoxInstance) interpreter.getGlobal("point");
+        sum = new Scanner("sum").scanTokens().get(0);
+        arguments = new Object[]{1L, 2L};
+    }
+
+    @Benchmark
+    public Object instantiate(){
+        return pointClass.call(interpreter, arguments);
+    }
+
+    @Benchmark
+    public Object methodDispatch(){
+        return ((LoxCallable) point.get(sum)).call(interpreter, LoxCallable.NO_ARGUMENTS);
+    }
+
+    @Benchmark
+    public Object binaryExpr(BinaryState state){
+        return interpreter.visitBinaryExpr(state.expr);
+    }
+
+    @Benchmark
+    public String stringifyLong(){
+        return Interpreter.stringify(1234567L);
+    }
+
+    @Benchmark
+    public String stringifyDouble(){
+        return Interpreter.stringify(3.25);
+    }
+
+    @Benchmark
+    public String stringifyString(){
+        return Interpreter.stringify(LoxString.of("lox"));
+    }
+}
@@ -1,42 +1,150 @@
 package jlox;
 
+import jlox.error.CompileError;
+import jlox.error.Diagnostics;
 import jlox.error.RuntimeError;
+import jlox.interpreter.ExecutionLimits;
+import jlox.interpreter.Instrumentation;
 import jlox.interpreter.Interpreter;
+import jlox.interpreter.InterpreterStats;
 import jlox.parser.Parser;
 import jlox.parser.Stmt;
+import jlox.perf.AstCounter;
+import jlox.perf.BenchRunner;
+import jlox.perf.LineCoverage;
+import jlox.perf.RunStats;
+import jlox.perf.SamplingProfiler;
+import jlox.perf.Tracer;
 import jlox.resolver.Resolver;
 import jlox.scanner.Scanner;
+import jlox.script.PreparedScript;
 import jlox.scanner.Token;
-import jlox.scanner.TokenType;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.Writer;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 public class Jlox {
 
-    private final static Interpreter interpreter = new Interpreter();
+    private static final long PROFILE_INTERVAL_MICROS = 1000;
+    private static final int HOTTEST_LINES = 10;
+    private static Interpreter interpreter;
     static private boolean hadError = false;
     static private boolean hadRuntimeError = false;
+    static private RunStats stats = RunStats.DISABLED;
+    static private Path profileOutput;
+    static private boolean jmx = false;
+    static private boolean trace = false;
+    static private int deepRecursionLimit = 0;
+    static private Path coverageOutput;
+    static private LineCoverage coverage;
+    // One resolver for the whole session, so REPL lines resolve against the same state. Resolved depths are
+    // stored on the AST nodes, so a line's resolution data is freed with the line once nothing references its code.
+    static private final Resolver resolver = new Resolver();
     public static void main(String[] args) throws IOException {
         
-        if (args.length > 1) {
-          System.out.println("Usage: java Jlox [script]");
-          System.exit(64); 
-        } else if (args.length == 1) {
-          runFile(args[0]);
+        if (args.length > 0 && args[0].equals("--bench")) {
+          BenchRunner runner = null;
+          try {
+            runner = BenchRunner.fromArgs(Arrays.copyOfRange(args, 1, args.length));
+          } catch (IllegalArgumentException error) {
+            System.err.println(error.getMessage());
+            usage();
+          }
+          System.exit(runner.run());
+        }
+
+        int first = 0;
+        while (first < args.length && args[first].startsWith("--")) {
+          switch (args[first]) {
+            case "--stats" -> stats = new RunStats();
+            case "--jmx" -> jmx = true;
+            case "--trace" -> trace = true;
+            case "--deep-recursion" -> {
+              if (++first == args.length) usage();
+              deepRecursionLimit = positive(args[first]);
+            }
+            case "--profile" -> {
+              if (++first == args.length) usage();
+              profileOutput = Path.of(args[first]);
+            }
+            case "--coverage" -> {
+              if (++first == args.length) usage();
+              coverageOutput = Path.of(args[first]);
+            }
+            default -> usage();
+          }
+          first++;
+        }
+
+        if (args.length - first > 1 || (coverageOutput != null && args.length == first)) {
+          usage();
+        }
+        if (trace) {
+          interpreter = Instrumentation.newInterpreter(new Tracer(System.err));
+        } else {
+          interpreter = new Interpreter();
+        }
+        if (deepRecursionLimit > 0) {
+          interpreter.setLimits(ExecutionLimits.UNLIMITED.withDeepRecursion(deepRecursionLimit));
+        }
+        if (jmx) {
+          interpreter.registerMBean();
+        }
+        if (args.length - first == 1) {
+          runFile(args[first]);
         } else {
           runPrompt();
         }
     } 
 
+    private static int positive(String value) {
+        try {
+            int number = Integer.parseInt(value);
+            if (number > 0) return number;
+        } catch (NumberFormatException ignored) {
+        }
+        System.err.println("Expected a positive integer but got '" + value + "'.");
+        usage();
+        return 0;
+    }
+
+    private static void usage() {
+        System.out.println("Usage: java Jlox [--stats] [--profile output] [--jmx] [--coverage lcov-output] [--trace] [--deep-recursion max-depth] [script] | --bench [corpus] [--baseline file] [--save-baseline file] [--threshold percent] [--warmup n] [--iterations n]");
+        System.exit(64);
+    }
+
     private static void runFile(String path) throws IOException {
         byte[] bytes = Files.readAllBytes(Path.of(path));
-        run(new String(bytes, Charset.defaultCharset()));
+        SamplingProfiler profiler = null;
+        if(profileOutput != null){
+            profiler = new SamplingProfiler(PROFILE_INTERVAL_MICROS, TimeUnit.MICROSECONDS);
+            profiler.attach(interpreter);
+            profiler.start();
+        }
+        String source = new String(bytes, Charset.defaultCharset());
+        run(source);
+        interpreter.stopTasks();
+        if(coverage != null){
+            try(Writer out = Files.newBufferedWriter(coverageOutput)){
+                coverage.writeLcov(out, Path.of(path).toAbsolutePath().toString());
+            }
+            coverage.reportHottest(System.err, source, HOTTEST_LINES);
+        }
+        if(profiler != null){
+            profiler.stop();
+            try(Writer out = Files.newBufferedWriter(profileOutput)){
+                profiler.writeCollapsed(out);
+            }
+        }
+        if(stats.isEnabled()) stats.report(System.err);
         if(hadError) System.exit(65);
         if(hadRuntimeError) System.exit(70);
     }
@@ -55,30 +163,63 @@ public class Jlox {
             if(line == null) break;
             run(line);
         }
+        interpreter.stopTasks();
     }
 
     private static void run(String source){
-        Scanner scanner = new Scanner(source);
-        List<Token> tokens = scanner.scanTokens();
-        if(hadError) return;
-        Parser parser = new Parser(tokens);
-        List<Stmt> statements = parser.parse();
-        if(hadError) return;
-        Resolver resolver = new Resolver(interpreter);
-        resolver.resolve(statements);
-        if(hadError) return;
-        interpreter.interpret(statements);
+        Diagnostics diagnostics = new Diagnostics();
+        Scanner scanner = new Scanner(source, diagnostics);
+        List<Token> tokens = stats.phase("scanning", scanner::scanTokens);
+        stats.count("tokens", tokens.size());
+        if(reportErrors(diagnostics)) return;
+        Parser parser = new Parser(tokens, diagnostics);
+        List<Stmt> statements = stats.phase("parsing", parser::parse);
+        if(stats.isEnabled()) stats.count("ast nodes", AstCounter.count(statements));
+        if(reportErrors(diagnostics)) return;
+        stats.phase("resolving", () -> {
+            resolver.resolve(statements, diagnostics);
+            return null;
+        });
+        if(reportErrors(diagnostics)) return;
+        if(coverageOutput != null){
+            coverage = new LineCoverage(statements, parser.getStatementCount());
+            coverage.attach(interpreter);
+        }
+        stats.phase("executing", () -> {
+            interpreter.interpret(statements);
+            return null;
+        });
+        if(stats.isEnabled()){
+            InterpreterStats counts = interpreter.getStats();
+            stats.count("statements", counts.statements());
+            stats.count("environments", counts.environments());
+            stats.count("calls", counts.calls());
+            stats.count("instances", counts.instances());
+            stats.count("max call depth", counts.maxCallDepth());
+        }
     }
 
-    public static void error(int line, String message){
-        report(line, "", message);
+    // Compiles a script for a host. Errors are collected per call and thrown together in the CompileError.
+    public static PreparedScript prepare(String source){
+        Diagnostics diagnostics = new Diagnostics();
+        List<Token> tokens = new Scanner(source, diagnostics).scanTokens();
+        if(diagnostics.hasErrors()) throw new CompileError("Script has scanning errors.", diagnostics.getErrors());
+        List<Stmt> statements = new Parser(tokens, diagnostics).parse();
+        if(diagnostics.hasErrors()) throw new CompileError("Script has syntax errors.", diagnostics.getErrors());
+        new Resolver().resolve(statements, diagnostics);
+        if(diagnostics.hasErrors()) throw new CompileError("Script has resolution errors.", diagnostics.getErrors());
+        return new PreparedScript(statements);
     }
 
-    public static void error(Token token, String message){
-        if(token.getType() == TokenType.EOF)
-            report(token.getLine(), "at end", message);
-        else
-            report(token.getLine(), "at '" + token.getLexeme() + "'", message);
+    private static boolean reportErrors(Diagnostics diagnostics){
+        for(String error : diagnostics.getErrors())
+            System.err.print(error);
+        if(diagnostics.hasErrors()) hadError = true;
+        return diagnostics.hasErrors();
+    }
+
+    public static synchronized void warning(Token token, String message){
+        System.err.printf("[line %d] Warning at '%s': %s%n", token.getLine(), token.getLexeme(), message);
     }
 
     public static void runtimeError(RuntimeError error){
@@ -86,10 +227,6 @@ public class Jlox {
         hadRuntimeError = true;
     }
 
-    private static void report(int line, String where, String message){
-        System.err.printf("[line %d] Error %s: %s", line, where, message);
-        hadError = true;
-    }
     
 }
 
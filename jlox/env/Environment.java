@@ -1,6 +1,7 @@
 package jlox.env;
 
 import jlox.error.RuntimeError;
+import jlox.scanner.Symbol;
 import jlox.scanner.Token;
 
 import java.util.HashMap;
@@ -9,7 +10,7 @@ import java.util.Map;
 public class Environment {
 
     private final Environment enclosing;
-    private final Map<String, Object> values = new HashMap<>();
+    private final Map<Symbol, Object> values = new HashMap<>();
 
     public Environment(){
         enclosing = null;
@@ -19,30 +20,35 @@ public class Environment {
         this.enclosing = enclosing;
     }
 
-    public void define(String name, Object value){
+    public void define(Symbol name, Object value){
         values.put(name, value);
     }
 
     public void assign(Token identifier, Object value){
-        if(values.containsKey(identifier.getLexeme()))
-            values.put(identifier.getLexeme(), value);
+        if(values.containsKey(identifier.getSymbol()))
+            values.put(identifier.getSymbol(), value);
 
         else throw new RuntimeError(identifier, "Undefined variable '" + identifier.getLexeme() + "'.");
     }
 
     public Object get(Token identifier){
-        if(values.containsKey(identifier.getLexeme()))
-            return values.get(identifier.getLexeme());
+        Object value = values.get(identifier.getSymbol());
+        if(value != null || values.containsKey(identifier.getSymbol()))
+            return value;
 
         throw new RuntimeError(identifier, "Undefined variable '" + identifier.getLexeme() + "'.");
     }
 
-    public Object getLocal(Integer distance, String name) {
+    public Object get(Symbol name){
+        return values.get(name);
+    }
+
+    public Object getLocal(Integer distance, Symbol name) {
         return getAt(distance).values.get(name);
     }
 
     public void assignLocal(Integer distance, Token name, Object value) {
-        getAt(distance).values.put(name.getLexeme(), value);
+        getAt(distance).values.put(name.getSymbol(), value);
     }
 
     private Environment getAt(int distance){
@@ -0,0 +1,41 @@
+package jlox.env;
+
+import jlox.error.RuntimeError;
+import jlox.scanner.Symbol;
+import jlox.scanner.Token;
+
+// The storage for one global variable. A cell exists from the first time its name is referenced,
+// so references can bind to it before the variable is defined; reading it before then is still an error.
+public final class GlobalCell {
+
+    private static final Object UNDEFINED = new Object();
+
+    final Symbol name;
+    private Object value = UNDEFINED;
+
+    GlobalCell(Symbol name) {
+        this.name = name;
+    }
+
+    public Object get(Token identifier){
+        Object current = value;
+        if(current == UNDEFINED)
+            throw new RuntimeError(identifier, "Undefined variable '" + name + "'.");
+        return current;
+    }
+
+    public void assign(Token identifier, Object newValue){
+        if(value == UNDEFINED)
+            throw new RuntimeError(identifier, "Undefined variable '" + name + "'.");
+        value = newValue;
+    }
+
+    void define(Object newValue){
+        value = newValue;
+    }
+
+    Object getOrNull(){
+        Object current = value;
+        return current == UNDEFINED ? null : current;
+    }
+}
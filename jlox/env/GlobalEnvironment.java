@@ -0,0 +1,68 @@
+package jlox.env;
+
+import jlox.scanner.Symbol;
+import jlox.scanner.Token;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Globals live in stable cells, found by name. A resolved reference also carries the slot its Resolver gave
+// the name, and the cell is cached at that slot, so the reference finds it with one array read. Slots are
+// numbered per compilation unit, so when several units run on the same globals a slot can hold another name's
+// cell; the name check catches that and the slot is rebound. The array only grows, under the lock; cells are
+// never replaced, so a value assigned while the array is copied is not lost.
+public class GlobalEnvironment extends Environment {
+
+    private final Map<Symbol, GlobalCell> byName = new ConcurrentHashMap<>();
+    private volatile AtomicReferenceArray<GlobalCell> cells = new AtomicReferenceArray<>(16);
+
+    public GlobalCell cell(int slot, Symbol name){
+        AtomicReferenceArray<GlobalCell> current = cells;
+        if(slot >= 0 && slot < current.length()){
+            GlobalCell cell = current.get(slot);
+            if(cell != null && cell.name == name) return cell;
+        }
+        return bind(slot, name);
+    }
+
+    public GlobalCell cell(Symbol name){
+        GlobalCell cell = byName.get(name);
+        return cell != null ? cell : byName.computeIfAbsent(name, GlobalCell::new);
+    }
+
+    private synchronized GlobalCell bind(int slot, Symbol name){
+        GlobalCell cell = cell(name);
+        if(slot < 0) return cell;
+        AtomicReferenceArray<GlobalCell> current = cells;
+        if(slot >= current.length()){
+            AtomicReferenceArray<GlobalCell> grown = new AtomicReferenceArray<>(Math.max(slot + 1, current.length() * 2));
+            for(int i = 0; i < current.length(); i++)
+                grown.set(i, current.get(i));
+            cells = current = grown;
+        }
+        current.set(slot, cell);
+        return cell;
+    }
+
+    @Override
+    public void define(Symbol name, Object value) {
+        cell(name).define(value);
+    }
+
+    @Override
+    public void assign(Token identifier, Object value) {
+        cell(identifier.getSymbol()).assign(identifier, value);
+    }
+
+    @Override
+    public Object get(Token identifier) {
+        return cell(identifier.getSymbol()).get(identifier);
+    }
+
+    @Override
+    public Object get(Symbol name) {
+        GlobalCell cell = byName.get(name);
+        return cell != null ? cell.getOrNull() : null;
+    }
+}
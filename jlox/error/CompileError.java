@@ -0,0 +1,24 @@
+package jlox.error;
+
+import java.util.List;
+
+public class CompileError extends RuntimeException{
+
+    private static final long serialVersionUID = 1L;
+
+    @SuppressWarnings("serial") // List.copyOf returns a serializable list
+    private final List<String> errors;
+
+    public CompileError(String message){
+        this(message, List.of());
+    }
+
+    public CompileError(String message, List<String> errors){
+        super(errors.isEmpty() ? message : message + "\n" + String.join("\n", errors));
+        this.errors = List.copyOf(errors);
+    }
+
+    public List<String> getErrors(){
+        return errors;
+    }
+}
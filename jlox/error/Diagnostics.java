@@ -0,0 +1,37 @@
+package jlox.error;
+
+import jlox.scanner.Token;
+import jlox.scanner.TokenType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Collects the errors of one scan, parse and resolve. Every compilation gets its own, so compilations
+// don't share state and a host receives the messages in the CompileError instead of on System.err.
+public class Diagnostics {
+
+    private final List<String> errors = new ArrayList<>();
+
+    public void error(int line, String message){
+        report(line, "", message);
+    }
+
+    public void error(Token token, String message){
+        if(token.getType() == TokenType.EOF)
+            report(token.getLine(), "at end", message);
+        else
+            report(token.getLine(), "at '" + token.getLexeme() + "'", message);
+    }
+
+    private void report(int line, String where, String message){
+        errors.add(String.format("[line %d] Error %s: %s", line, where, message));
+    }
+
+    public boolean hasErrors(){
+        return !errors.isEmpty();
+    }
+
+    public List<String> getErrors(){
+        return List.copyOf(errors);
+    }
+}
@@ -0,0 +1,16 @@
+package jlox.error;
+
+import jlox.scanner.Token;
+
+public class LimitExceededError extends RuntimeError{
+
+    private static final long serialVersionUID = 1L;
+
+    public LimitExceededError(Token token, String message){
+        super(token, message);
+    }
+
+    public LimitExceededError(String message){
+        super(message);
+    }
+}
@@ -10,6 +10,11 @@ public class RuntimeError extends RuntimeException{
         this.token = token;
     }
 
+    // For errors raised by native functions, the call site supplies the token.
+    public RuntimeError(String message){
+        this(null, message);
+    }
+
     public Token getToken(){
         return token;
     }
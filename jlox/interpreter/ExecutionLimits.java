@@ -0,0 +1,23 @@
+package jlox.interpreter;
+
+// Hard limits for a single execution. Steps are loop iterations plus calls,
+// allocations are instances plus environments. With deepRecursion, recursion is bounded by
+// maxCallDepth and the heap instead of the Java thread stack.
+public record ExecutionLimits(long maxSteps, long timeoutMillis, int maxCallDepth, long maxAllocations,
+                              boolean deepRecursion) {
+
+    public static final ExecutionLimits UNLIMITED =
+            new ExecutionLimits(Long.MAX_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE, Long.MAX_VALUE);
+
+    public ExecutionLimits(long maxSteps, long timeoutMillis, int maxCallDepth, long maxAllocations) {
+        this(maxSteps, timeoutMillis, maxCallDepth, maxAllocations, false);
+    }
+
+    public ExecutionLimits withDeepRecursion(int maxCallDepth){
+        return new ExecutionLimits(maxSteps, timeoutMillis, maxCallDepth, maxAllocations, true);
+    }
+
+    public boolean hasTimeout(){
+        return timeoutMillis != Long.MAX_VALUE;
+    }
+}
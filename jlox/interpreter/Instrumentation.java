@@ -0,0 +1,15 @@
+package jlox.interpreter;
+
+// Creates instrumented interpreters for callers that hold them as a plain Interpreter. Verifying such a
+// caller then never loads InstrumentedInterpreter; it is loaded the first time a listener is actually set.
+public final class Instrumentation {
+
+    private Instrumentation() {
+    }
+
+    public static Interpreter newInterpreter(InterpreterListener listener){
+        InstrumentedInterpreter interpreter = new InstrumentedInterpreter();
+        interpreter.addListener(listener);
+        return interpreter;
+    }
+}
@@ -0,0 +1,83 @@
+package jlox.interpreter;
+
+import jlox.parser.Expr;
+import jlox.parser.Stmt;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// An interpreter that reports statements, calls and variable assignments to listeners. The listener checks
+// live only in these overrides, so a plain Interpreter runs without any of them. Counted loops are turned off
+// so that every update of a loop counter is reported. Forks share the listeners.
+public class InstrumentedInterpreter extends Interpreter {
+
+    private final List<InterpreterListener> listeners;
+
+    public InstrumentedInterpreter(){
+        this.listeners = new CopyOnWriteArrayList<>();
+    }
+
+    private InstrumentedInterpreter(InstrumentedInterpreter parent){
+        super(parent);
+        this.listeners = parent.listeners;
+    }
+
+    public void addListener(InterpreterListener listener){
+        listeners.add(listener);
+    }
+
+    public void removeListener(InterpreterListener listener){
+        listeners.remove(listener);
+    }
+
+    @Override
+    protected Interpreter fork(){
+        return new InstrumentedInterpreter(this);
+    }
+
+    @Override
+    protected boolean useCountedLoops(){
+        return false;
+    }
+
+    @Override
+    protected void execute(Stmt statement){
+        for(InterpreterListener listener : listeners)
+            listener.statementEntered(this, statement);
+        super.execute(statement);
+    }
+
+    @Override
+    protected Object invoke(LoxCallable function, Object[] arguments){
+        for(InterpreterListener listener : listeners)
+            listener.callEntered(this, function, arguments);
+        Object result;
+        try{
+            result = super.invoke(function, arguments);
+        }
+        catch (RuntimeException | Error error){
+            for(InterpreterListener listener : listeners)
+                listener.callFailed(this, function, error);
+            throw error;
+        }
+        for(InterpreterListener listener : listeners)
+            listener.callExited(this, function, result);
+        return result;
+    }
+
+    @Override
+    public Object visitAssignExpr(Expr.Assign expr){
+        Object value = super.visitAssignExpr(expr);
+        for(InterpreterListener listener : listeners)
+            listener.variableAssigned(this, expr.getName(), value);
+        return value;
+    }
+
+    @Override
+    public Object visitIncrementExpr(Expr.Increment expr){
+        Object value = super.visitIncrementExpr(expr);
+        for(InterpreterListener listener : listeners)
+            listener.variableAssigned(this, expr.getVariable().getName(), value);
+        return value;
+    }
+}
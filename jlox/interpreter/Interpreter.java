@@ -2,81 +2,401 @@ package jlox.interpreter;
 
 import jlox.Jlox;
 import jlox.env.Environment;
+import jlox.env.GlobalEnvironment;
+import jlox.error.LimitExceededError;
 import jlox.error.Return;
 import jlox.error.RuntimeError;
 import jlox.parser.Expr;
 import jlox.parser.Stmt;
+import jlox.runtime.LoxNumbers;
+import jlox.runtime.LoxString;
+import jlox.scanner.Symbol;
 import jlox.scanner.Token;
 import jlox.scanner.TokenType;
 
-import java.util.ArrayList;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
 
-public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor {
+import static jlox.runtime.LoxNumbers.isNumber;
+import static jlox.runtime.LoxNumbers.toDouble;
 
+public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor, InterpreterMXBean {
 
-    private final Environment globals = new Environment();
-    private final Map<Expr, Integer> locals = new HashMap<>();
-    private Environment env = globals;
+
+    static final Set<String> PURE_NATIVES = Set.of("clock", "list", "dict", "len", "get", "has", "keys");
+    // Natives whose result depends only on their arguments, so calls to them may be memoized.
+    static final Set<String> DETERMINISTIC_NATIVES = Set.of("list", "dict", "len", "get", "has", "keys");
+
+    private final GlobalEnvironment globals;
+    private Environment env;
+    private OutputSink output = OutputSink.STDOUT;
+
+    private static final long COUNTER_LIMIT = 1L << 52;
+    private static final long CLOCK_CHECK_INTERVAL = 1024;
+    // Lox frames per thread in deep recursion mode. A Lox call takes about a kilobyte of Java stack
+    // before it is compiled, so this stays well inside the default 1 MB stack.
+    private static final int FRAMES_PER_STACK = 256;
+    private ExecutionLimits limits = ExecutionLimits.UNLIMITED;
+    private RunState run = new RunState(limits);
+    private TaskGroup tasks = new TaskGroup();
+    private boolean forked;
+    // Steps and allocations not yet added to the run.
+    private long steps;
+    private long allocations;
+    private long nextCheck = Long.MAX_VALUE;
+    private long nextAllocationCheck = Long.MAX_VALUE;
+    private int callDepth;
+    private int nextStack = Integer.MAX_VALUE;
+
+    ShadowStack callStack;
+    private long[] statementCounts;
+
+    private static final AtomicLong ids = new AtomicLong();
+    private final long id = ids.incrementAndGet();
+
+    private final SharedCounters counters;
+    private boolean registered;
+    // Counts not yet added to counters.
+    private long statements;
+    private long environments;
+    private long calls;
+    private long instances;
+    private int maxCallDepth;
+    private long nativeNanos;
+    private volatile int publishedCallDepth;
+    boolean timingNatives;
 
 
     public Interpreter(){
-        globals.define("clock", new LoxCallable() {
-            @Override
-            public int getArity() {
-                return 0;
-            }
+        this.globals = new GlobalEnvironment();
+        this.env = globals;
+        this.counters = new SharedCounters();
 
-            @Override
-            public Object call(Interpreter interpreter, List<Object> arguments) {
-                return (double) System.currentTimeMillis() / 1000.0;
-            }
+        defineNative("clock", 0, (interpreter, arguments) -> (double) System.currentTimeMillis() / 1000.0);
+
+        defineNative("print", 1, (interpreter, arguments) -> {
+            interpreter.output.print(arguments[0]);
+            return null;
         });
 
-        globals.define("print", new LoxCallable() {
-            @Override
-            public int getArity() {
-                return 1;
-            }
+        defineNative("println", 1, (interpreter, arguments) -> {
+            interpreter.output.println(arguments[0]);
+            return null;
+        });
 
-            @Override
-            public Object call(Interpreter interpreter, List<Object> arguments) {
-                for (Object argument : arguments)
-                    System.out.print(stringify(argument));
-                return null;
-            }
+        defineNative("spawn", 1, (interpreter, arguments) -> LoxTask.spawn(interpreter, arguments[0]));
+
+        defineNative("await", 1, (interpreter, arguments) -> {
+            if(!(arguments[0] instanceof LoxTask task))
+                throw new RuntimeError("Can only await a task.");
+            return task.await(interpreter);
         });
 
-        globals.define("println", new LoxCallable() {
-            @Override
-            public int getArity() {
-                return 1;
-            }
+        defineNative("channel", 1, (interpreter, arguments) -> {
+            if(!(arguments[0] instanceof Long capacity) || capacity < 1 || capacity > Integer.MAX_VALUE)
+                throw new RuntimeError("Channel capacity must be a positive integer.");
+            return new LoxChannel(capacity.intValue());
+        });
 
-            @Override
-            public Object call(Interpreter interpreter, List<Object> arguments) {
-                for (Object argument : arguments)
-                    System.out.println(stringify(argument));
-                return null;
-            }
+        defineNative("send", 2, (interpreter, arguments) -> {
+            if(!(arguments[0] instanceof LoxChannel channel))
+                throw new RuntimeError("Can only send to a channel.");
+            channel.send(interpreter, arguments[1]);
+            return null;
+        });
+
+        defineNative("receive", 1, (interpreter, arguments) -> {
+            if(!(arguments[0] instanceof LoxChannel channel))
+                throw new RuntimeError("Can only receive from a channel.");
+            return channel.receive(interpreter);
+        });
+
+        defineNative("list", 0, (interpreter, arguments) -> new LoxList());
+
+        defineNative("len", 1, (interpreter, arguments) -> {
+            if(arguments[0] instanceof LoxDict dict) return LoxNumbers.box(dict.size());
+            return LoxNumbers.box(checkList(arguments[0]).size());
+        });
+
+        defineNative("push", 2, (interpreter, arguments) -> {
+            checkList(arguments[0]).add(arguments[1]);
+            return null;
+        });
+
+        defineNative("get", 2, (interpreter, arguments) -> {
+            if(arguments[0] instanceof LoxDict dict) return dict.get(arguments[1]);
+            return checkList(arguments[0]).get(arguments[1]);
+        });
+
+        defineNative("set", 3, (interpreter, arguments) -> {
+            checkList(arguments[0]).set(arguments[1], arguments[2]);
+            return arguments[2];
+        });
+
+        defineNative("map", 2, (interpreter, arguments) ->
+                checkList(arguments[0]).map(interpreter, checkFunction(arguments[1], 1)));
+
+        defineNative("filter", 2, (interpreter, arguments) ->
+                checkList(arguments[0]).filter(interpreter, checkFunction(arguments[1], 1)));
+
+        defineNative("reduce", 3, (interpreter, arguments) ->
+                checkList(arguments[0]).reduce(interpreter, checkFunction(arguments[1], 2), arguments[2]));
+
+        defineNative("sort", 1, (interpreter, arguments) -> {
+            LoxList list = checkList(arguments[0]);
+            list.sort();
+            return list;
+        });
+
+        defineNative("dict", 0, (interpreter, arguments) -> new LoxDict());
+
+        defineNative("put", 3, (interpreter, arguments) -> {
+            checkDict(arguments[0]).put(arguments[1], arguments[2]);
+            return arguments[2];
+        });
+
+        defineNative("has", 2, (interpreter, arguments) -> checkDict(arguments[0]).has(arguments[1]));
+
+        defineNative("remove", 2, (interpreter, arguments) -> checkDict(arguments[0]).remove(arguments[1]));
+
+        defineNative("keys", 1, (interpreter, arguments) -> checkDict(arguments[0]).keys());
+
+        defineNative("memoize", 1, (interpreter, arguments) -> {
+            if(arguments[0] instanceof NativeFunction function && !DETERMINISTIC_NATIVES.contains(function.getName()))
+                throw new RuntimeError("Can't memoize a native function with side effects or changing results.");
+            if(!(arguments[0] instanceof LoxFunction || arguments[0] instanceof NativeFunction
+                    || arguments[0] instanceof MemoizedFunction))
+                throw new RuntimeError("Can only memoize a function.");
+            if(arguments[0] instanceof LoxFunction function && !function.isDeterministic())
+                Jlox.warning(function.getDeclaration().getName(),
+                        "Memoized function may have side effects or depend on state; cached calls will skip them.");
+            return new MemoizedFunction((LoxCallable) arguments[0]);
+        });
+
+        defineNative("memoStats", 1, (interpreter, arguments) -> {
+            if(!(arguments[0] instanceof MemoizedFunction memoized))
+                throw new RuntimeError("Expected a memoized function.");
+            return memoized.stats();
         });
     }
 
+    // A child interpreter for another thread: it shares globals, resolution data, limits, the
+    // run's budget and the task group, but has its own current environment and counters.
+    protected Interpreter(Interpreter parent){
+        this.globals = parent.globals;
+        this.env = globals;
+        this.output = parent.output;
+        this.limits = parent.limits;
+        this.nextStack = limits.deepRecursion() ? FRAMES_PER_STACK : Integer.MAX_VALUE;
+        this.run = parent.run;
+        this.tasks = parent.tasks;
+        this.forked = true;
+        this.counters = parent.counters;
+        this.timingNatives = parent.timingNatives;
+        this.statementCounts = parent.statementCounts;
+        scheduleChecks();
+    }
+
+    protected Interpreter fork(){
+        return new Interpreter(this);
+    }
+
+    // Called by a fork once its work is done, to add its counts to the interpreter it came from.
+    void retire(){
+        publishCounters();
+    }
+
+    private void publishCounters(){
+        counters.add(new InterpreterStats(statements, environments, calls, instances, maxCallDepth, nativeNanos));
+        statements = 0;
+        environments = 0;
+        calls = 0;
+        instances = 0;
+        nativeNanos = 0;
+        publishedCallDepth = callDepth;
+    }
+
+    private static LoxList checkList(Object value){
+        if(value instanceof LoxList list) return list;
+        throw new RuntimeError("Expected a list.");
+    }
+
+    private static LoxDict checkDict(Object value){
+        if(value instanceof LoxDict dict) return dict;
+        throw new RuntimeError("Expected a dict.");
+    }
+
+    private static LoxCallable checkFunction(Object value, int arity){
+        if(value instanceof LoxCallable function && function.getArity() == arity) return function;
+        throw new RuntimeError("Expected a function that takes " + arity + (arity == 1 ? " argument." : " arguments."));
+    }
+
+    private void defineNative(String name, int arity, NativeFunction.Body body){
+        globals.define(Symbol.of(name), new NativeFunction(name, arity, body));
+    }
+
     public void interpret(List<Stmt> statements){
+        try{
+            execute(statements);
+        }
+        catch (RuntimeError error){
+            Jlox.runtimeError(error);
+        }
+    }
+
+    // Each call starts a fresh budget. Tasks the statements spawn keep running after this returns, so a later
+    // call can await them, until stopTasks.
+    public void execute(List<Stmt> statements){
+        if(!registered){
+            LoxEvents.register(this);
+            registered = true;
+        }
+        startBudget();
         try{
             for(Stmt statement : statements){
                 execute(statement);
             }
         }
         catch (RuntimeError error){
-            Jlox.runtimeError(error);
+            LoxEvents.runtimeError(error);
+            throw error;
+        }
+        finally {
+            publishCounters();
+            output.flush();
+        }
+    }
+
+    // Stops the tasks still running, for a host whose script or session has finished. Tasks spawned
+    // afterwards belong to a new group.
+    public void stopTasks(){
+        tasks.stop();
+        tasks = new TaskGroup();
+    }
+
+    public void setOutput(OutputSink output){
+        this.output = output;
+    }
+
+    // Tracks the active Lox functions for a profiler; null, the default, turns tracking off.
+    public void setCallStack(ShadowStack callStack){
+        this.callStack = callStack;
+    }
+
+    // Counts every statement executed into counts[statement id]. Forks share the array, so counts
+    // from statements running concurrently in tasks may undercount slightly.
+    public void setStatementCounts(long[] counts){
+        this.statementCounts = counts;
+    }
+
+    public void setLimits(ExecutionLimits limits){
+        this.limits = limits;
+        this.nextStack = limits.deepRecursion() ? callDepth + FRAMES_PER_STACK : Integer.MAX_VALUE;
+    }
+
+    // Host values are converted to Lox's: strings to LoxString, integral numbers to Long and
+    // other numbers through the same normalization as arithmetic results.
+    public void defineGlobal(String name, Object value){
+        globals.define(Symbol.of(name), fromHost(value));
+    }
+
+    private static Object fromHost(Object value){
+        if(value instanceof String text) return LoxString.of(text);
+        if(value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte)
+            return LoxNumbers.box(((Number) value).longValue());
+        if(value instanceof Double || value instanceof Float)
+            return LoxNumbers.fromDouble(((Number) value).doubleValue());
+        return value;
+    }
+
+    public Object getGlobal(String name){
+        return globals.get(Symbol.of(name));
+    }
+
+    public long getId(){
+        return id;
+    }
+
+    // Counts for this interpreter plus the tasks and parallel list operations it started. Safe to read from
+    // any thread: running interpreters publish their counts every CLOCK_CHECK_INTERVAL steps, and in full
+    // once execute returns or a task finishes.
+    public InterpreterStats getStats(){
+        return counters.sum();
+    }
+
+    // Publishes this interpreter's counters as jlox:type=Interpreter,id=<id> on the platform MBean server
+    // and starts timing native calls, which is otherwise skipped.
+    public ObjectName registerMBean(){
+        try{
+            timingNatives = true;
+            ObjectName name = new ObjectName("jlox:type=Interpreter,id=" + id);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+            return name;
+        }
+        catch (JMException e){
+            throw new IllegalStateException("Could not register the interpreter MBean.", e);
         }
     }
 
-    public void resolve(Expr expr, int depth) {
-        locals.put(expr, depth);
+    public void unregisterMBean(){
+        try{
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName("jlox:type=Interpreter,id=" + id));
+        }
+        catch (JMException e){
+            throw new IllegalStateException("Could not unregister the interpreter MBean.", e);
+        }
+    }
+
+    @Override
+    public long getStatementsExecuted(){
+        return getStats().statements();
+    }
+
+    @Override
+    public long getCalls(){
+        return getStats().calls();
+    }
+
+    @Override
+    public long getInstancesCreated(){
+        return getStats().instances();
+    }
+
+    @Override
+    public long getEnvironmentsAllocated(){
+        return getStats().environments();
+    }
+
+    @Override
+    public int getCurrentCallDepth(){
+        return publishedCallDepth;
+    }
+
+    // The live call depth, for listeners, which run on the interpreter's own thread.
+    public int getCallDepth(){
+        return callDepth;
+    }
+
+    @Override
+    public long getNativeTimeMillis(){
+        return getStats().nativeNanos() / 1_000_000;
+    }
+
+    @Override
+    public long getOutputBytes(){
+        return output.getBytesWritten();
+    }
+
+    void addNativeTime(long nanos){
+        nativeNanos += nanos;
     }
 
     @Override
@@ -92,11 +412,17 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor {
             value = evaluate(stmt.getInitializer());
         }
 
-        env.define(stmt.getIdentifier().getLexeme(), value);
+        env.define(stmt.getIdentifier().getSymbol(), value);
     }
 
     @Override
     public void visitBlockStmt(Stmt.Block stmt) {
+        if(!stmt.isScoped()){
+            for(Stmt statement : stmt.getStatements())
+                execute(statement);
+            return;
+        }
+        countEnvironment();
         executeBlock(stmt.getStatements(), new Environment(this.env));
     }
 
@@ -110,14 +436,86 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor {
 
     @Override
     public void visitWhileStmt(Stmt.While stmt) {
-        while (isTruthy(evaluate(stmt.getCondition())))
+        while (isTruthy(evaluate(stmt.getCondition()))){
             execute(stmt.getBody());
+            step(stmt.getKeyword());
+        }
+    }
+
+    @Override
+    public void visitForStmt(Stmt.For stmt) {
+        if(stmt.getInitializer() == null){
+            loop(stmt);
+            return;
+        }
+
+        countEnvironment();
+        Environment outerEnv = this.env;
+        try{
+            this.env = new Environment(outerEnv);
+            execute(stmt.getInitializer());
+            if(stmt.isCounted() && useCountedLoops()) countedLoop(stmt);
+            else loop(stmt);
+        }
+        finally {
+            this.env = outerEnv;
+        }
+    }
+
+    // Counted loops update their counter without evaluating the increment; subclasses that observe assignments turn them off.
+    protected boolean useCountedLoops(){
+        return true;
+    }
+
+    private void loop(Stmt.For stmt){
+        Expr increment = stmt.getIncrement();
+        while (isTruthy(evaluate(stmt.getCondition()))){
+            execute(stmt.getBody());
+            if(increment != null) evaluate(increment);
+            step(stmt.getKeyword());
+        }
+    }
+
+    // Keeps the counter in a long and only publishes it to the loop scope when the body can see it.
+    // Hands over to the generic loop once the bound isn't an integer or the counter leaves the exact range.
+    private void countedLoop(Stmt.For stmt){
+        Symbol counter = ((Stmt.Var) stmt.getInitializer()).getIdentifier().getSymbol();
+        Expr.Compare condition = (Expr.Compare) stmt.getCondition();
+        Expr.Increment increment = (Expr.Increment) stmt.getIncrement();
+        TokenType comparison = condition.getOperator().getType();
+        long delta = (Long) increment.getConstant();
+        if(increment.getOperator().getType() == TokenType.MINUS) delta = -delta;
+        boolean counterRead = stmt.isCounterRead();
+
+        long i = (Long) env.get(counter);
+        while (true){
+            Object bound = condition.getRight() instanceof Expr.Literal literal
+                    ? literal.getValue() : visitVariableExpr((Expr.Variable) condition.getRight());
+            if(!(bound instanceof Long limit) || Math.abs(i) > COUNTER_LIMIT || Math.abs(delta) > COUNTER_LIMIT){
+                env.define(counter, LoxNumbers.box(i));
+                loop(stmt);
+                return;
+            }
+            boolean more = switch (comparison){
+                case LESS -> i < limit;
+                case LESS_EQUAL -> i <= limit;
+                case GREATER -> i > limit;
+                default -> i >= limit;
+            };
+            if(!more) break;
+
+            if(counterRead) env.define(counter, LoxNumbers.box(i));
+            execute(stmt.getBody());
+            i += delta;
+            step(stmt.getKeyword());
+        }
+        env.define(counter, LoxNumbers.box(i));
     }
 
     @Override
     public void visitFunStmt(Stmt.Function stmt) {
         LoxFunction function = new LoxFunction(stmt, env, false);
-        env.define(stmt.getName().getLexeme(), function);
+        env.define(stmt.getName().getSymbol(), function);
     }
 
     @Override
@@ -138,19 +536,21 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor {
             if(!(superClass instanceof LoxClass))
                 throw new RuntimeError(stmt.getSuperClass().getName(), "Superclass must be a class.");
         }
-        env.define(stmt.getName().getLexeme(), null);
+        env.define(stmt.getName().getSymbol(), null);
 
         if(stmt.getSuperClass() != null){
+            countEnvironment();
             env = new Environment(env);
-            env.define("super", superClass);
+            env.define(Symbol.SUPER, superClass);
         }
-        Map<String, LoxFunction> methods = new HashMap<>();
+        Map<Symbol, LoxFunction> methods = new HashMap<>();
         for(Stmt.Function method : stmt.getMethods()){
-            boolean isInitializer = method.getName().getLexeme().equals("init");
+            boolean isInitializer = method.getName().getSymbol() == Symbol.INIT;
             LoxFunction function = new LoxFunction(method, env, isInitializer);
-            methods.put(method.getName().getLexeme(), function);
+            methods.put(method.getName().getSymbol(), function);
         }
         LoxClass newClass = new LoxClass(stmt.getName().getLexeme(), (LoxClass) superClass,methods);
+        LoxEvents.register(newClass);
         if(superClass != null)
             env = env.getEnclosing();
         env.assign(stmt.getName(), newClass);
@@ -158,57 +558,78 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor {
 
     @Override
     public Object visitBinaryExpr(Expr.Binary expr) {
-        Object leftVal = evaluate(expr.getLeft());
-        Object rightVal = evaluate(expr.getRight());
-        return switch (expr.getOperator().getType()){
+        return binary(expr.getOperator(), evaluate(expr.getLeft()), evaluate(expr.getRight()));
+    }
+
+    private Object binary(Token operator, Object leftVal, Object rightVal) {
+        return switch (operator.getType()){
             case PLUS -> {
-                if(leftVal instanceof Double && rightVal instanceof Double){
-                    yield (Double) leftVal + (Double) rightVal;
+                if(leftVal instanceof Long left && rightVal instanceof Long right){
+                    yield LoxNumbers.add(left, right);
                 }
-                if(leftVal instanceof String && rightVal instanceof String){
-                    yield String.valueOf(leftVal) + rightVal;
+                if(isNumber(leftVal) && isNumber(rightVal)){
+                    yield toDouble(leftVal) + toDouble(rightVal);
                 }
-                if(leftVal instanceof String && rightVal instanceof Double){
-                    yield leftVal + stringify(rightVal);
+                if(leftVal instanceof LoxString left && rightVal instanceof LoxString right){
+                    yield left.concat(right);
                 }
-                if(leftVal instanceof Double && rightVal instanceof String){
-                    yield stringify(leftVal) + rightVal;
+                if(leftVal instanceof LoxString left && isNumber(rightVal)){
+                    yield left.concat(LoxString.of(stringify(rightVal)));
                 }
-                if(leftVal instanceof Double && rightVal instanceof Boolean){
-                    yield (Double) leftVal + ((Boolean) rightVal ? 1 : 0);
+                if(isNumber(leftVal) && rightVal instanceof LoxString right){
+                    yield LoxString.of(stringify(leftVal)).concat(right);
                 }
-                if(leftVal instanceof Boolean && rightVal instanceof Double){
-                    yield ((Boolean) leftVal ? 1 : 0) + (Double) rightVal;
+                if(isNumber(leftVal) && rightVal instanceof Boolean right){
+                    if(leftVal instanceof Long left) yield LoxNumbers.add(left, right ? 1 : 0);
+                    yield toDouble(leftVal) + (right ? 1 : 0);
                 }
-                throw new RuntimeError(expr.getOperator(), "Invalid operands.");
+                if(leftVal instanceof Boolean left && isNumber(rightVal)){
+                    if(rightVal instanceof Long right) yield LoxNumbers.add(left ? 1 : 0, right);
+                    yield (left ? 1 : 0) + toDouble(rightVal);
+                }
+                throw new RuntimeError(operator, "Invalid operands.");
             }
             case MINUS -> {
-                checkNumOperands(expr.getOperator(), leftVal, rightVal);
-                yield (Double) leftVal - (Double) rightVal;
+                if(leftVal instanceof Long left && rightVal instanceof Long right)
+                    yield LoxNumbers.subtract(left, right);
+                checkNumOperands(operator, leftVal, rightVal);
+                yield toDouble(leftVal) - toDouble(rightVal);
             }
             case STAR -> {
-                checkNumOperands(expr.getOperator(), leftVal, rightVal);
-                yield (Double) leftVal * (Double) rightVal;
+                if(leftVal instanceof Long left && rightVal instanceof Long right)
+                    yield LoxNumbers.multiply(left, right);
+                checkNumOperands(operator, leftVal, rightVal);
+                yield toDouble(leftVal) * toDouble(rightVal);
             }
             case SLASH -> {
-                checkNumOperands(expr.getOperator(), leftVal, rightVal);
-                yield (Double) leftVal / (Double) rightVal;
+                if(leftVal instanceof Long left && rightVal instanceof Long right)
+                    yield LoxNumbers.divide(left, right);
+                checkNumOperands(operator, leftVal, rightVal);
+                yield toDouble(leftVal) / toDouble(rightVal);
             }
             case GREATER -> {
-                checkNumOperands(expr.getOperator(), leftVal, rightVal);
-                yield (Double) leftVal > (Double) rightVal;
+                if(leftVal instanceof Long left && rightVal instanceof Long right)
+                    yield left > right;
+                checkNumOperands(operator, leftVal, rightVal);
+                yield toDouble(leftVal) > toDouble(rightVal);
             }
             case GREATER_EQUAL -> {
-                checkNumOperands(expr.getOperator(), leftVal, rightVal);
-                yield (Double) leftVal >= (Double) rightVal;
+                if(leftVal instanceof Long left && rightVal instanceof Long right)
+                    yield left >= right;
+                checkNumOperands(operator, leftVal, rightVal);
+                yield toDouble(leftVal) >= toDouble(rightVal);
             }
             case LESS -> {
-                checkNumOperands(expr.getOperator(), leftVal, rightVal);
-                yield (Double) leftVal < (Double) rightVal;
+                if(leftVal instanceof Long left && rightVal instanceof Long right)
+                    yield left < right;
+                checkNumOperands(operator, leftVal, rightVal);
+                yield toDouble(leftVal) < toDouble(rightVal);
             }
             case LESS_EQUAL -> {
-                checkNumOperands(expr.getOperator(), leftVal, rightVal);
-                yield (Double) leftVal <= (Double) rightVal;
+                if(leftVal instanceof Long left && rightVal instanceof Long right)
+                    yield left <= right;
+                checkNumOperands(operator, leftVal, rightVal);
+                yield toDouble(leftVal) <= toDouble(rightVal);
             }
             case EQUAL_EQUAL -> isEqual(leftVal, rightVal);
             case BANG_EQUAL -> !isEqual(leftVal, rightVal);
@@ -233,8 +654,10 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor {
         return switch (expr.getOperator().getType()){
             case BANG -> !isTruthy(rightVal);
             case MINUS -> {
+                if(rightVal instanceof Long right)
+                    yield LoxNumbers.negate(right);
                 checkNumOperand(expr.getOperator(), rightVal);
-                yield -(Double) rightVal;
+                yield -toDouble(rightVal);
             }
             default -> null;
         };
@@ -242,16 +665,19 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor {
 
     @Override
     public Object visitVariableExpr(Expr.Variable expr) {
-        return lookUpVariable(expr.getName(), expr);
+        int distance = expr.getDepth();
+        if(distance >= 0)
+            return env.getLocal(distance, expr.getName().getSymbol());
+        return globals.cell(expr.getSlot(), expr.getName().getSymbol()).get(expr.getName());
     }
 
     @Override
     public Object visitAssignExpr(Expr.Assign expr) {
         Object value = evaluate(expr.getValue());
-        Integer distance = locals.get(expr);
-        if(distance != null)
+        int distance = expr.getDepth();
+        if(distance >= 0)
             env.assignLocal(distance, expr.getName(), value);
-        else globals.assign(expr.getName(), value);
+        else globals.cell(expr.getSlot(), expr.getName().getSymbol()).assign(expr.getName(), value);
         return value;
     }
 
@@ -275,19 +701,46 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor {
     public Object visitCallExpr(Expr.Call expr) {
         Object callee = evaluate(expr.getCallee());
 
-        List<Object> arguments = new ArrayList<>();
-        for(Expr argument : expr.getArguments()){
-            arguments.add(evaluate(argument));
+        List<Expr> argumentExprs = expr.getArguments();
+        Object[] arguments = argumentExprs.isEmpty() ? LoxCallable.NO_ARGUMENTS : new Object[argumentExprs.size()];
+        for(int i = 0; i < arguments.length; i++){
+            arguments[i] = evaluate(argumentExprs.get(i));
         }
 
-        if(!(callee instanceof LoxCallable function))
-            throw new RuntimeError(expr.getParen(), "Invalid callee type: can only call functions and classes.");
-
+        // The call site remembers the declaration of the last Lox function it validated, which fixes the arity
+        // and, being part of the shared AST, means the same in every run. Natives and classes belong to one
+        // interpreter, so they are checked on every call rather than kept on the node.
+        Stmt.Function declaration = callee instanceof LoxFunction loxFunction ? loxFunction.getDeclaration() : null;
+        if(declaration == null || declaration != expr.getValidatedDeclaration()){
+            if(!(callee instanceof LoxCallable))
+                throw new RuntimeError(expr.getParen(), "Invalid callee type: can only call functions and classes.");
 
-        if(arguments.size() != function.getArity())
-            throw new RuntimeError(expr.getParen(), "Expected " + function.getArity() + " arguments but got " + arguments.size() + ".");
+            int arity = ((LoxCallable) callee).getArity();
+            if(arguments.length != arity)
+                throw new RuntimeError(expr.getParen(), "Expected " + arity + " arguments but got " + arguments.length + ".");
+            if(declaration != null) expr.setValidatedDeclaration(declaration);
+        }
+        LoxCallable function = (LoxCallable) callee;
 
-        return function.call(this, arguments);
+        step(expr.getParen());
+        if(++callDepth > limits.maxCallDepth()){
+            callDepth--;
+            throw new LimitExceededError(expr.getParen(), "Maximum call depth of " + limits.maxCallDepth() + " exceeded.");
+        }
+        calls++;
+        if(callDepth > maxCallDepth) maxCallDepth = callDepth;
+        try{
+            if(callDepth >= nextStack) return invokeOnNewStack(function, arguments);
+            return invoke(function, arguments);
+        }
+        catch (RuntimeError error){
+            if(error.getToken() != null) throw error;
+            if(error instanceof LimitExceededError) throw new LimitExceededError(expr.getParen(), error.getMessage());
+            throw new RuntimeError(expr.getParen(), error.getMessage());
+        }
+        finally {
+            callDepth--;
+        }
     }
 
     @Override
@@ -312,6 +765,49 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor {
         throw new RuntimeError(expr.getName(), "Only instances have fields.");
     }
 
+    @Override
+    public Object visitIncrementExpr(Expr.Increment expr) {
+        Expr.Variable variable = expr.getVariable();
+        Object current = visitVariableExpr(variable);
+        Object result;
+        if(current instanceof Long value && expr.getConstant() instanceof Long constant)
+            result = expr.getOperator().getType() == TokenType.PLUS
+                    ? LoxNumbers.add(value, constant) : LoxNumbers.subtract(value, constant);
+        else result = binary(expr.getOperator(), current, expr.getConstant());
+        assignVariable(variable, result);
+        return result;
+    }
+
+    @Override
+    public Object visitCompareExpr(Expr.Compare expr) {
+        Object leftVal = visitVariableExpr(expr.getLeft());
+        Object rightVal = expr.getRight() instanceof Expr.Literal literal
+                ? literal.getValue() : visitVariableExpr((Expr.Variable) expr.getRight());
+        if(leftVal instanceof Long left && rightVal instanceof Long right){
+            return switch (expr.getOperator().getType()){
+                case LESS -> left < right;
+                case LESS_EQUAL -> left <= right;
+                case GREATER -> left > right;
+                default -> left >= right;
+            };
+        }
+        return binary(expr.getOperator(), leftVal, rightVal);
+    }
+
+    @Override
+    public Object visitUpdateFieldExpr(Expr.UpdateField expr) {
+        Object object = evaluate(expr.getObject());
+
+        if(object instanceof LoxInstance instance){
+            Object current = instance.get(expr.getName());
+            Object value = binary(expr.getOperator(), current, evaluate(expr.getValue()));
+            instance.set(expr.getName(), value);
+            return value;
+        }
+
+        throw new RuntimeError(expr.getName(), "Only instances have fields.");
+    }
+
     @Override
     public Object visitThisExpr(Expr.This expr) {
         return lookUpVariable(expr.getKeyword(), expr);
@@ -319,10 +815,10 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor {
 
     @Override
     public Object visitSuperExpr(Expr.Super expr) {
-        int distance = locals.get(expr);
-        LoxClass superClass = (LoxClass) env.getLocal(distance, "super");
-        LoxInstance object = (LoxInstance) env.getLocal(distance - 1, "this");
-        LoxFunction method = superClass.findMethod(expr.getMethod().getLexeme());
+        int distance = expr.getDepth();
+        LoxClass superClass = (LoxClass) env.getLocal(distance, Symbol.SUPER);
+        LoxInstance object = (LoxInstance) env.getLocal(distance - 1, Symbol.THIS);
+        LoxFunction method = superClass.findMethod(expr.getMethod().getSymbol());
         if(method == null){
             throw new RuntimeError(expr.getMethod(), "undefined property '" + expr.getMethod().getLexeme() + "'.");
         }
@@ -330,6 +826,74 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor {
     }
 
 
+    // Writes a variable that was just read through the same node.
+    private void assignVariable(Expr.Variable variable, Object value){
+        if(variable.getDepth() >= 0)
+            env.assignLocal(variable.getDepth(), variable.getName(), value);
+        else globals.cell(variable.getSlot(), variable.getName().getSymbol()).assign(variable.getName(), value);
+    }
+
+    void countEnvironment(){
+        allocations++;
+        environments++;
+    }
+
+    void countInstance(){
+        allocations++;
+        instances++;
+    }
+
+    private void startBudget(){
+        run = new RunState(limits);
+        steps = 0;
+        allocations = 0;
+        scheduleChecks();
+    }
+
+    // Local counts reach the run and the shared counters every CLOCK_CHECK_INTERVAL, or sooner when the
+    // run's remaining budget is smaller.
+    private void scheduleChecks(){
+        nextCheck = Math.min(CLOCK_CHECK_INTERVAL, limits.maxSteps() - run.steps.get());
+        if(limits.maxAllocations() != Long.MAX_VALUE)
+            nextAllocationCheck = Math.min(CLOCK_CHECK_INTERVAL, limits.maxAllocations() - run.allocations.get());
+        else nextAllocationCheck = Long.MAX_VALUE;
+    }
+
+    private void step(Token token){
+        if(++steps > nextCheck || allocations > nextAllocationCheck)
+            checkLimits(token);
+    }
+
+    private void checkLimits(Token token){
+        publishCounters();
+        long totalSteps = run.steps.addAndGet(steps);
+        long totalAllocations = run.allocations.addAndGet(allocations);
+        steps = 0;
+        allocations = 0;
+        if(totalSteps > limits.maxSteps())
+            throw new LimitExceededError(token, "Step limit of " + limits.maxSteps() + " exceeded.");
+        if(totalAllocations > limits.maxAllocations())
+            throw new LimitExceededError(token, "Allocation limit of " + limits.maxAllocations() + " exceeded.");
+        if(run.timed && System.nanoTime() - run.deadline > 0)
+            throw new LimitExceededError(token, "Time limit of " + limits.timeoutMillis() + "ms exceeded.");
+        if(forked && tasks.isStopped())
+            throw new RuntimeError(token, "Task stopped because its script finished.");
+        scheduleChecks();
+    }
+
+    TaskGroup getTasks(){
+        return tasks;
+    }
+
+    // How long a native may block before the run's deadline passes.
+    long nanosUntilDeadline(){
+        return run.timed ? run.deadline - System.nanoTime() : Long.MAX_VALUE;
+    }
+
+    LimitExceededError timeLimitExceeded(){
+        return new LimitExceededError("Time limit of " + limits.timeoutMillis() + "ms exceeded.");
+    }
+
     void executeBlock(List<Stmt> statements, Environment innerEnv){
         Environment outerEnv = this.env;
         try{
@@ -343,21 +907,79 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor {
         }
     }
 
-    private void execute(Stmt statement){
-        statement.accept(this);
+    // Tests the node types that dominate typical scripts first, most frequent first, and leaves the
+    // rest to accept(). Checks against the final node classes are a pointer compare, and unlike the
+    // megamorphic accept() call they let the JIT inline the visit methods into the loop.
+    protected void execute(Stmt statement){
+        statements++;
+        if(statementCounts != null) statementCounts[statement.getId()]++;
+        if(statement instanceof Stmt.Expression expression) evaluate(expression.getExpression());
+        else if(statement instanceof Stmt.Block block) visitBlockStmt(block);
+        else if(statement instanceof Stmt.If ifStmt) visitIfStmt(ifStmt);
+        else if(statement instanceof Stmt.Return returnStmt) visitReturnStmt(returnStmt);
+        else statement.accept(this);
     }
 
-    private Object evaluate(Expr expr){
+    public Object evaluate(Expr expr){
+        if(expr instanceof Expr.Variable variable) return visitVariableExpr(variable);
+        if(expr instanceof Expr.Binary binary) return visitBinaryExpr(binary);
+        if(expr instanceof Expr.Compare compare) return visitCompareExpr(compare);
+        if(expr instanceof Expr.Call call) return visitCallExpr(call);
+        if(expr instanceof Expr.Literal literal) return literal.getValue();
+        if(expr instanceof Expr.Increment increment) return visitIncrementExpr(increment);
+        if(expr instanceof Expr.Assign assign) return visitAssignExpr(assign);
+        if(expr instanceof Expr.This thisExpr) return visitThisExpr(thisExpr);
+        if(expr instanceof Expr.Get get) return visitGetExpr(get);
+        if(expr instanceof Expr.Set set) return visitSetExpr(set);
         return expr.accept(this);
     }
 
-    private boolean isTruthy(Object val){
+    // Every call of a Lox value goes through here, from call expressions as well as from natives that call back.
+    protected Object invoke(LoxCallable function, Object[] arguments){
+        return function.call(this, arguments);
+    }
+
+    // Continues a deep recursion on a fresh virtual thread while this thread waits. A waiting virtual thread's
+    // frames are moved to the heap, so the depth is bounded by the heap rather than by any one thread's stack.
+    // The interpreter is only ever used by the thread at the top, so its state needs no synchronization,
+    // and the waiting thread must not leave before the call is done, even when interrupted.
+    private Object invokeOnNewStack(LoxCallable function, Object[] arguments){
+        int previous = nextStack;
+        nextStack = callDepth + FRAMES_PER_STACK;
+        FutureTask<Object> frames = new FutureTask<>(() -> invoke(function, arguments));
+        Thread stack = Thread.ofVirtual().name("lox-stack").start(frames);
+        boolean interrupted = false;
+        try{
+            while (true){
+                try{
+                    return frames.get();
+                }
+                catch (InterruptedException error){
+                    interrupted = true;
+                    stack.interrupt();
+                }
+            }
+        }
+        catch (ExecutionException error){
+            if(error.getCause() instanceof RuntimeException cause) throw cause;
+            if(error.getCause() instanceof Error cause) throw cause;
+            throw new RuntimeError("Call failed: " + error.getCause() + ".");
+        }
+        finally {
+            nextStack = previous;
+            if(interrupted) Thread.currentThread().interrupt();
+        }
+    }
+
+    static boolean isTruthy(Object val){
         if(val == null)
             return false;
         if(val instanceof Boolean)
             return (Boolean) val;
-        if(val instanceof String)
-            return !((String) val).isBlank();
+        if(val instanceof LoxString)
+            return !((LoxString) val).isBlank();
+        if(val instanceof Long)
+            return ((Long) val) != 0;
         if(val instanceof Double)
             return ((Double) val) != 0.0;
         return true;
@@ -368,21 +990,25 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor {
             return true;
         if(first == null)
             return false;
+        if(isNumber(first) && isNumber(second))
+            return LoxNumbers.equal(first, second);
         return first.equals(second);
     }
 
     private void checkNumOperand(Token operator, Object operand){
-        if(operand instanceof Double) return;
+        if(isNumber(operand)) return;
         throw new RuntimeError(operator, "Operand must be a number.");
     }
 
     private void checkNumOperands(Token operator, Object left, Object right){
-        if(left instanceof Double && right instanceof Double) return;
+        if(isNumber(left) && isNumber(right)) return;
         throw new RuntimeError(operator, "Operands must be numbers.");
     }
 
-    private String stringify(Object value){
+    public static String stringify(Object value){
         if (value == null) return "nil";
+        if(value instanceof Long number)
+            return LoxNumbers.format(number);
         if(value instanceof Double){
             String result = String.valueOf(value);
             if(result.endsWith(".0"))
@@ -393,10 +1019,9 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor {
     }
 
     private Object lookUpVariable(Token identifier, Expr expr){
-        Integer distance = locals.get(expr);
-
-        if(distance != null)
-            return env.getLocal(distance, identifier.getLexeme());
+        int distance = expr.getDepth();
+        if(distance >= 0)
+            return env.getLocal(distance, identifier.getSymbol());
 
         return globals.get(identifier);
     }
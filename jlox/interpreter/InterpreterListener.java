@@ -0,0 +1,26 @@
+package jlox.interpreter;
+
+import jlox.parser.Stmt;
+import jlox.scanner.Token;
+
+// Receives the progress of an InstrumentedInterpreter, on the thread running the script. Blocking in a
+// callback pauses the script there, which is all a step debugger needs. Tasks and parallel list operations
+// report from their own threads.
+public interface InterpreterListener {
+
+    default void statementEntered(Interpreter interpreter, Stmt statement) {
+    }
+
+    default void callEntered(Interpreter interpreter, LoxCallable function, Object[] arguments) {
+    }
+
+    default void callExited(Interpreter interpreter, LoxCallable function, Object result) {
+    }
+
+    // Called instead of callExited when the call throws, usually a RuntimeError.
+    default void callFailed(Interpreter interpreter, LoxCallable function, Throwable error) {
+    }
+
+    default void variableAssigned(Interpreter interpreter, Token name, Object value) {
+    }
+}
@@ -0,0 +1,19 @@
+package jlox.interpreter;
+
+// What an interpreter reports over JMX once registered with Interpreter.registerMBean().
+public interface InterpreterMXBean {
+
+    long getStatementsExecuted();
+
+    long getCalls();
+
+    long getInstancesCreated();
+
+    long getEnvironmentsAllocated();
+
+    int getCurrentCallDepth();
+
+    long getNativeTimeMillis();
+
+    long getOutputBytes();
+}
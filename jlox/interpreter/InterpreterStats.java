@@ -0,0 +1,5 @@
+package jlox.interpreter;
+
+public record InterpreterStats(long statements, long environments, long calls, long instances,
+                               int maxCallDepth, long nativeNanos) {
+}
@@ -1,9 +1,9 @@
 package jlox.interpreter;
 
-import java.util.List;
-
 public interface LoxCallable {
 
+    Object[] NO_ARGUMENTS = new Object[0];
+
     int getArity();
-    Object call (Interpreter interpreter, List<Object> arguments);
+    Object call (Interpreter interpreter, Object[] arguments);
 }
@@ -0,0 +1,48 @@
+package jlox.interpreter;
+
+import jlox.error.RuntimeError;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public class LoxChannel {
+
+    // BlockingQueue rejects null, so nil travels as this marker.
+    private static final Object NIL = new Object();
+
+    private final BlockingQueue<Object> queue;
+
+    LoxChannel(int capacity) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    // Both ends wait at most until the interpreter's deadline.
+    void send(Interpreter interpreter, Object value){
+        try{
+            if(!queue.offer(value == null ? NIL : value, interpreter.nanosUntilDeadline(), TimeUnit.NANOSECONDS))
+                throw interpreter.timeLimitExceeded();
+        }
+        catch (InterruptedException error){
+            Thread.currentThread().interrupt();
+            throw new RuntimeError("Interrupted while sending to a channel.");
+        }
+    }
+
+    Object receive(Interpreter interpreter){
+        try{
+            Object value = queue.poll(interpreter.nanosUntilDeadline(), TimeUnit.NANOSECONDS);
+            if(value == null) throw interpreter.timeLimitExceeded();
+            return value == NIL ? null : value;
+        }
+        catch (InterruptedException error){
+            Thread.currentThread().interrupt();
+            throw new RuntimeError("Interrupted while receiving from a channel.");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "<Channel>";
+    }
+}
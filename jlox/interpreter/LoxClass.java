@@ -1,18 +1,24 @@
 package jlox.interpreter;
 
-import java.util.List;
+import jlox.scanner.Symbol;
+
 import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
 public class LoxClass implements LoxCallable{
 
     private final String name;
     private final LoxClass superClass;
-    private final Map<String, LoxFunction> methods;
+    private final Map<Symbol, LoxFunction> methods;
+    private final LoxFunction initializer;
+    private final LongAdder instantiations = new LongAdder();
 
-    public LoxClass(String name, LoxClass superClass, Map<String, LoxFunction> methods) {
+    public LoxClass(String name, LoxClass superClass, Map<Symbol, LoxFunction> methods) {
         this.name = name;
         this.superClass = superClass;
         this.methods = methods;
+        LoxFunction own = methods.get(Symbol.INIT);
+        this.initializer = own != null || superClass == null ? own : superClass.findMethod(Symbol.INIT);
     }
 
     public String getName() {
@@ -26,22 +32,28 @@ public class LoxClass implements LoxCallable{
 
     @Override
     public int getArity() {
-        LoxFunction initializer = findMethod("init");
         return initializer != null ? initializer.getArity() : 0;
     }
 
     @Override
-    public Object call(Interpreter interpreter, List<Object> arguments) {
+    public Object call(Interpreter interpreter, Object[] arguments) {
+        interpreter.countInstance();
+        instantiations.increment();
         LoxInstance instance =  new LoxInstance(this);
-        LoxFunction initializer = findMethod("init");
         if(initializer != null)
-            initializer.bind(instance).call(interpreter, arguments);
+            interpreter.invoke(initializer.bind(instance), arguments);
         return instance;
     }
 
-    LoxFunction findMethod(String name){
-        if(methods.containsKey(name))
-            return methods.get(name);
+    // Instances created since the previous call, for the periodic instantiation event.
+    long takeInstantiations(){
+        return instantiations.sumThenReset();
+    }
+
+    LoxFunction findMethod(Symbol name){
+        LoxFunction method = methods.get(name);
+        if(method != null)
+            return method;
         if(superClass != null)
             return superClass.findMethod(name);
         return null;
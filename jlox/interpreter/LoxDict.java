@@ -0,0 +1,182 @@
+package jlox.interpreter;
+
+import jlox.error.RuntimeError;
+import jlox.runtime.LoxNumbers;
+import jlox.runtime.LoxString;
+
+// An open-addressing hash table with linear probing, keyed by numbers or strings.
+// Number keys are kept as raw double bits in a long[], so they are never boxed.
+// Tasks may share a dict: each operation holds its lock.
+public class LoxDict {
+
+    private static final byte EMPTY = 0;
+    private static final byte NUMBER = 1;
+    private static final byte STRING = 2;
+
+    private byte[] kinds;
+    private long[] numberKeys;
+    private Object[] stringKeys;
+    private Object[] values;
+    private int size;
+    private int shift;
+
+    LoxDict() {
+        allocate(16);
+    }
+
+    synchronized int size(){
+        return size;
+    }
+
+    synchronized Object get(Object key){
+        int slot = find(key);
+        return slot >= 0 ? values[slot] : null;
+    }
+
+    synchronized boolean has(Object key){
+        return find(key) >= 0;
+    }
+
+    synchronized void put(Object key, Object value){
+        int mask = kinds.length - 1;
+        for(int slot = hash(key); ; slot = (slot + 1) & mask){
+            if(kinds[slot] == EMPTY){
+                store(slot, key, value);
+                if(++size * 3 > kinds.length * 2) grow();
+                return;
+            }
+            if(matches(slot, key)){
+                values[slot] = value;
+                return;
+            }
+        }
+    }
+
+    synchronized Object remove(Object key){
+        int slot = find(key);
+        if(slot < 0) return null;
+        Object removed = values[slot];
+        size--;
+
+        // Backward-shift deletion: move later entries of the probe run into the hole, so no tombstones are needed.
+        int mask = kinds.length - 1;
+        int hole = slot;
+        for(int next = (hole + 1) & mask; kinds[next] != EMPTY; next = (next + 1) & mask){
+            int home = homeOf(next);
+            if(((next - home) & mask) >= ((next - hole) & mask)){
+                kinds[hole] = kinds[next];
+                numberKeys[hole] = numberKeys[next];
+                stringKeys[hole] = stringKeys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+        }
+        kinds[hole] = EMPTY;
+        stringKeys[hole] = null;
+        values[hole] = null;
+        return removed;
+    }
+
+    synchronized LoxList keys(){
+        LoxList keys = new LoxList();
+        for(int slot = 0; slot < kinds.length; slot++){
+            if(kinds[slot] == NUMBER) keys.add(LoxNumbers.fromDouble(Double.longBitsToDouble(numberKeys[slot])));
+            else if(kinds[slot] == STRING) keys.add(stringKeys[slot]);
+        }
+        return keys;
+    }
+
+    private int find(Object key){
+        int mask = kinds.length - 1;
+        for(int slot = hash(key); kinds[slot] != EMPTY; slot = (slot + 1) & mask){
+            if(matches(slot, key)) return slot;
+        }
+        return -1;
+    }
+
+    private boolean matches(int slot, Object key){
+        if(LoxNumbers.isNumber(key))
+            return kinds[slot] == NUMBER && numberKeys[slot] == bits(key);
+        return kinds[slot] == STRING && stringKeys[slot].equals(key);
+    }
+
+    private void store(int slot, Object key, Object value){
+        if(LoxNumbers.isNumber(key)){
+            kinds[slot] = NUMBER;
+            numberKeys[slot] = bits(key);
+        }
+        else {
+            kinds[slot] = STRING;
+            stringKeys[slot] = key;
+        }
+        values[slot] = value;
+    }
+
+    private int hash(Object key){
+        if(LoxNumbers.isNumber(key)) return spread(bits(key));
+        if(key instanceof LoxString string) return spread(string.hashCode());
+        throw new RuntimeError("Dict keys must be numbers or strings.");
+    }
+
+    // Integers and the equal doubles must share a key, so every number key is hashed and compared as a double.
+    private static long bits(Object number){
+        return Double.doubleToLongBits(LoxNumbers.toDouble(number));
+    }
+
+    private int homeOf(int slot){
+        return kinds[slot] == NUMBER ? spread(numberKeys[slot]) : spread(stringKeys[slot].hashCode());
+    }
+
+    // Fibonacci hashing: the high bits of the product index a table of 2^(64 - shift) slots.
+    private int spread(long hash){
+        return (int) ((hash * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+
+    private void grow(){
+        byte[] oldKinds = kinds;
+        long[] oldNumberKeys = numberKeys;
+        Object[] oldStringKeys = stringKeys;
+        Object[] oldValues = values;
+        allocate(oldKinds.length * 2);
+        int mask = kinds.length - 1;
+        for(int i = 0; i < oldKinds.length; i++){
+            if(oldKinds[i] == EMPTY) continue;
+            int slot = oldKinds[i] == NUMBER ? spread(oldNumberKeys[i]) : spread(oldStringKeys[i].hashCode());
+            while(kinds[slot] != EMPTY) slot = (slot + 1) & mask;
+            kinds[slot] = oldKinds[i];
+            numberKeys[slot] = oldNumberKeys[i];
+            stringKeys[slot] = oldStringKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+
+    private void allocate(int capacity){
+        kinds = new byte[capacity];
+        numberKeys = new long[capacity];
+        stringKeys = new Object[capacity];
+        values = new Object[capacity];
+        shift = 64 - Integer.numberOfTrailingZeros(capacity);
+    }
+
+    // Formats a copy of the entries, so that nested lists and dicts are never locked while this one is.
+    @Override
+    public String toString() {
+        Object[] entries;
+        synchronized (this){
+            entries = new Object[size * 2];
+            int entry = 0;
+            for(int slot = 0; slot < kinds.length; slot++){
+                if(kinds[slot] == EMPTY) continue;
+                entries[entry++] = kinds[slot] == NUMBER
+                        ? LoxNumbers.fromDouble(Double.longBitsToDouble(numberKeys[slot])) : stringKeys[slot];
+                entries[entry++] = values[slot];
+            }
+        }
+        StringBuilder builder = new StringBuilder("{");
+        for(int entry = 0; entry < entries.length; entry += 2){
+            if(entry > 0) builder.append(", ");
+            builder.append(Interpreter.stringify(entries[entry])).append(": ").append(Interpreter.stringify(entries[entry + 1]));
+        }
+        return builder.append("}").toString();
+    }
+}
@@ -0,0 +1,196 @@
+package jlox.interpreter;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jlox.error.RuntimeError;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+// JDK Flight Recorder events for Lox activity, so recordings line Lox calls and errors up with GC
+// and CPU. Loading an event class initializes Flight Recorder, which costs hundreds of milliseconds,
+// so event classes are only touched while a recording runs. A listener, which is cheap to add, keeps
+// track of that for recordings started any way: -XX:StartFlightRecording, JAVA_TOOL_OPTIONS,
+// jcmd JFR.start or JMC. Interpreters and classes are registered all the time, so that a recording
+// started later still sees them in the periodic events.
+final class LoxEvents {
+
+    private static volatile boolean recording;
+
+    @Name("jlox.Call")
+    @Label("Lox Call")
+    @Category("Lox")
+    @Description("A call to a Lox function that took longer than the threshold")
+    @Threshold("10 ms")
+    @StackTrace(false)
+    static final class Call extends Event {
+        @Label("Function")
+        String function;
+
+        @Label("Line")
+        int line;
+    }
+
+    @Name("jlox.RuntimeError")
+    @Label("Lox Runtime Error")
+    @Category("Lox")
+    @StackTrace(false)
+    static final class Error extends Event {
+        @Label("Type")
+        String type;
+
+        @Label("Message")
+        String message;
+
+        @Label("Line")
+        int line;
+    }
+
+    @Name("jlox.ClassInstantiations")
+    @Label("Lox Class Instantiations")
+    @Category("Lox")
+    @Description("Instances created of one Lox class since the previous period")
+    @Period("1 s")
+    @StackTrace(false)
+    static final class ClassInstantiations extends Event {
+        @Label("Class")
+        String className;
+
+        @Label("Instances")
+        long instances;
+    }
+
+    @Name("jlox.InterpreterCounters")
+    @Label("Lox Interpreter Counters")
+    @Category("Lox")
+    @Period("1 s")
+    @StackTrace(false)
+    static final class Counters extends Event {
+        @Label("Interpreter")
+        long interpreter;
+
+        @Label("Statements")
+        long statements;
+
+        @Label("Environments")
+        long environments;
+
+        @Label("Calls")
+        long calls;
+
+        @Label("Instances")
+        long instances;
+
+        @Label("Max Call Depth")
+        int maxCallDepth;
+    }
+
+    private static final Set<Interpreter> interpreters = Collections.synchronizedSet(
+            Collections.newSetFromMap(new WeakHashMap<>()));
+    private static final Set<LoxClass> classes = Collections.synchronizedSet(
+            Collections.newSetFromMap(new WeakHashMap<>()));
+
+    static {
+        FlightRecorder.addListener(new FlightRecorderListener() {
+            @Override
+            public void recorderInitialized(FlightRecorder recorder) {
+                FlightRecorder.addPeriodicEvent(Counters.class, LoxEvents::emitCounters);
+                FlightRecorder.addPeriodicEvent(ClassInstantiations.class, LoxEvents::emitInstantiations);
+                update(recorder);
+            }
+
+            @Override
+            public void recordingStateChanged(Recording changed) {
+                update(FlightRecorder.getFlightRecorder());
+            }
+        });
+    }
+
+    private LoxEvents() {
+    }
+
+    private static synchronized void update(FlightRecorder recorder){
+        recording = recorder.getRecordings().stream().anyMatch(running -> running.getState() == RecordingState.RUNNING);
+    }
+
+    // Whether a recording is running, so that events are worth creating.
+    static boolean isRecording(){
+        return recording;
+    }
+
+    static void register(Interpreter interpreter){
+        interpreters.add(interpreter);
+    }
+
+    static void register(LoxClass loxClass){
+        classes.add(loxClass);
+    }
+
+    static Call startCall(){
+        Call event = new Call();
+        event.begin();
+        return event;
+    }
+
+    static void endCall(Call event, LoxFunction function){
+        event.end();
+        if(!event.shouldCommit()) return;
+        event.function = function.getDeclaration().getName().getLexeme();
+        event.line = function.getDeclaration().getName().getLine();
+        event.commit();
+    }
+
+    static void runtimeError(RuntimeError error){
+        if(!recording) return;
+        Error event = new Error();
+        if(!event.shouldCommit()) return;
+        event.type = error.getClass().getSimpleName();
+        event.message = error.getMessage();
+        event.line = error.getToken() != null ? error.getToken().getLine() : -1;
+        event.commit();
+    }
+
+    private static void emitCounters(){
+        for(Interpreter interpreter : snapshot(interpreters)){
+            InterpreterStats stats = interpreter.getStats();
+            Counters event = new Counters();
+            event.interpreter = interpreter.getId();
+            event.statements = stats.statements();
+            event.environments = stats.environments();
+            event.calls = stats.calls();
+            event.instances = stats.instances();
+            event.maxCallDepth = stats.maxCallDepth();
+            event.commit();
+        }
+    }
+
+    private static void emitInstantiations(){
+        for(LoxClass loxClass : snapshot(classes)){
+            long instances = loxClass.takeInstantiations();
+            if(instances == 0) continue;
+            ClassInstantiations event = new ClassInstantiations();
+            event.className = loxClass.getName();
+            event.instances = instances;
+            event.commit();
+        }
+    }
+
+    private static <T> List<T> snapshot(Set<T> set){
+        synchronized (set){
+            return new ArrayList<>(set);
+        }
+    }
+}
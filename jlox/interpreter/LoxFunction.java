@@ -3,8 +3,12 @@ package jlox.interpreter;
 import jlox.env.Environment;
 import jlox.error.Return;
 import jlox.parser.Stmt;
+import jlox.resolver.PurityAnalyzer;
+import jlox.scanner.Symbol;
+import jlox.scanner.Token;
 
 import java.util.List;
+import java.util.Set;
 
 public class LoxFunction implements LoxCallable{
 
@@ -25,26 +29,62 @@ public class LoxFunction implements LoxCallable{
     }
 
     @Override
-    public Object call(Interpreter interpreter, List<Object> arguments) {
+    public Object call(Interpreter interpreter, Object[] arguments) {
+        interpreter.countEnvironment();
         Environment environment = new Environment(closure);
 
-        for(int i = 0; i < declaration.getParams().size(); i++){
-            String param = declaration.getParams().get(i).getLexeme();
-            environment.define(param, arguments.get(i));
+        List<Token> params = declaration.getParams();
+        for(int i = 0; i < arguments.length; i++){
+            environment.define(params.get(i).getSymbol(), arguments[i]);
         }
 
+        ShadowStack callStack = interpreter.callStack;
+        if(callStack != null) callStack.push(this);
+        LoxEvents.Call event = LoxEvents.isRecording() ? LoxEvents.startCall() : null;
         try{
             interpreter.executeBlock(declaration.getBody(), environment);
         }
         catch (Return ReturnException){
-            if(isInitializer) return closure.getLocal(0, "this");
+            if(isInitializer) return closure.getLocal(0, Symbol.THIS);
             return ReturnException.getValue();
         }
+        finally {
+            if(callStack != null) callStack.pop();
+            if(event != null) LoxEvents.endCall(event, this);
+        }
 
-        if(isInitializer) return closure.getLocal(0, "this");
+        if(isInitializer) return closure.getLocal(0, Symbol.THIS);
         return null;
     }
 
+    Stmt.Function getDeclaration() {
+        return declaration;
+    }
+
+    // Not cached: whether a call inside the body is pure depends on what its variable holds now.
+    boolean isPure() {
+        return PurityAnalyzer.isPure(declaration, (name, depth) -> isPureCallee(name, depth, Interpreter.PURE_NATIVES));
+    }
+
+    // Stricter than isPure: the result must also not depend on the clock, so a cached result stays correct.
+    boolean isDeterministic() {
+        return PurityAnalyzer.isPure(declaration, (name, depth) -> isPureCallee(name, depth, Interpreter.DETERMINISTIC_NATIVES));
+    }
+
+    // A call from the body stays pure if it reaches this same function again or one of the given natives.
+    private boolean isPureCallee(Token name, int depth, Set<String> natives){
+        Object callee = depth >= 0 ? closure.getLocal(depth, name.getSymbol()) : globals().get(name.getSymbol());
+        if(callee instanceof LoxFunction function) return function.declaration == declaration;
+        return callee instanceof NativeFunction function && natives.contains(function.getName());
+    }
+
+    private Environment globals(){
+        Environment env = closure;
+        while (env.getEnclosing() != null)
+            env = env.getEnclosing();
+        return env;
+    }
+
     @Override
     public String toString() {
         return "<Function> " + declaration.getName().getLexeme();
@@ -52,7 +92,7 @@ public class LoxFunction implements LoxCallable{
 
     LoxFunction bind(LoxInstance instance){
         Environment env = new Environment(closure);
-        env.define("this", instance);
+        env.define(Symbol.THIS, instance);
         return new LoxFunction(declaration, env, isInitializer);
     }
 }
@@ -1,6 +1,7 @@
 package jlox.interpreter;
 
 import jlox.error.RuntimeError;
+import jlox.scanner.Symbol;
 import jlox.scanner.Token;
 
 import java.util.HashMap;
@@ -8,7 +9,7 @@ import java.util.Map;
 
 public class LoxInstance {
     private final LoxClass loxClass;
-    private final Map<String, Object> fields = new HashMap<>();
+    private final Map<Symbol, Object> fields = new HashMap<>();
 
     public LoxInstance(LoxClass loxClass) {
         this.loxClass = loxClass;
@@ -19,16 +20,17 @@ public class LoxInstance {
         return loxClass.getName() + " instance";
     }
 
-    Object get(Token name){
-        if(fields.containsKey(name.getLexeme()))
-            return fields.get(name.getLexeme());
-        LoxFunction method = loxClass.findMethod(name.getLexeme());
+    synchronized Object get(Token name){
+        Object value = fields.get(name.getSymbol());
+        if(value != null || fields.containsKey(name.getSymbol()))
+            return value;
+        LoxFunction method = loxClass.findMethod(name.getSymbol());
         if (method != null) return method.bind(this);
         throw new RuntimeError(name, "Undefined Property '" + name.getLexeme() + "'.");
     }
 
-    void set(Token name, Object value){
-        fields.put(name.getLexeme(), value);
+    synchronized void set(Token name, Object value){
+        fields.put(name.getSymbol(), value);
     }
 
 }
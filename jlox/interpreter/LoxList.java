@@ -0,0 +1,184 @@
+package jlox.interpreter;
+
+import jlox.error.RuntimeError;
+import jlox.runtime.LoxNumbers;
+import jlox.runtime.LoxString;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+// A growable list that keeps its elements in a double[] while they are all numbers
+// and switches to an Object[] the first time anything else is stored. Tasks may share a list: each
+// operation holds its lock, and map, filter and reduce call back into Lox on a copy taken when they start.
+public class LoxList {
+
+    static final int PARALLEL_THRESHOLD = 8192;
+    private static final int CHUNK_SIZE = 2048;
+
+    private double[] numbers;
+    private Object[] objects;
+    private int size;
+
+    LoxList() {
+        this.numbers = new double[8];
+    }
+
+    synchronized int size(){
+        return size;
+    }
+
+    synchronized Object get(Object index){
+        int i = checkIndex(index);
+        return numbers != null ? LoxNumbers.fromDouble(numbers[i]) : objects[i];
+    }
+
+    synchronized void set(Object index, Object value){
+        int i = checkIndex(index);
+        if(numbers != null){
+            if(LoxNumbers.isNumber(value)){
+                numbers[i] = LoxNumbers.toDouble(value);
+                return;
+            }
+            generalize();
+        }
+        objects[i] = value;
+    }
+
+    synchronized void add(Object value){
+        if(numbers != null){
+            if(LoxNumbers.isNumber(value)){
+                if(size == numbers.length) numbers = Arrays.copyOf(numbers, size * 2);
+                numbers[size++] = LoxNumbers.toDouble(value);
+                return;
+            }
+            generalize();
+        }
+        if(size == objects.length) objects = Arrays.copyOf(objects, size * 2);
+        objects[size++] = value;
+    }
+
+    LoxList map(Interpreter interpreter, LoxCallable function){
+        Object[] elements = snapshot();
+        Object[] results = new Object[elements.length];
+        forEachChunk(interpreter, function, elements.length, (child, from, to) -> {
+            for(int i = from; i < to; i++)
+                results[i] = child.invoke(function, new Object[]{elements[i]});
+        });
+        LoxList mapped = new LoxList();
+        for(Object result : results)
+            mapped.add(result);
+        return mapped;
+    }
+
+    LoxList filter(Interpreter interpreter, LoxCallable predicate){
+        Object[] elements = snapshot();
+        boolean[] keep = new boolean[elements.length];
+        forEachChunk(interpreter, predicate, elements.length, (child, from, to) -> {
+            for(int i = from; i < to; i++)
+                keep[i] = Interpreter.isTruthy(child.invoke(predicate, new Object[]{elements[i]}));
+        });
+        LoxList filtered = new LoxList();
+        for(int i = 0; i < elements.length; i++)
+            if(keep[i]) filtered.add(elements[i]);
+        return filtered;
+    }
+
+    // Always sequential: combining chunks in parallel is only correct for associative functions.
+    Object reduce(Interpreter interpreter, LoxCallable function, Object initial){
+        Object accumulator = initial;
+        for(Object element : snapshot())
+            accumulator = interpreter.invoke(function, new Object[]{accumulator, element});
+        return accumulator;
+    }
+
+    // Decides by the elements rather than the storage: a list that once held a string keeps its Object[]
+    // after the string is replaced, and sorts like any other list of numbers.
+    synchronized void sort(){
+        if(numbers != null){
+            if(size >= PARALLEL_THRESHOLD) Arrays.parallelSort(numbers, 0, size);
+            else Arrays.sort(numbers, 0, size);
+            return;
+        }
+        Comparator<Object> order;
+        if(allElements(LoxNumbers::isNumber)) order = LoxList::compareNumbers;
+        else if(allElements(element -> element instanceof LoxString))
+            order = (left, right) -> ((LoxString) left).compareTo((LoxString) right);
+        else throw new RuntimeError("Can only sort lists of numbers or lists of strings.");
+        if(size >= PARALLEL_THRESHOLD) Arrays.parallelSort(objects, 0, size, order);
+        else Arrays.sort(objects, 0, size, order);
+    }
+
+    private boolean allElements(Predicate<Object> test){
+        for(int i = 0; i < size; i++)
+            if(!test.test(objects[i])) return false;
+        return true;
+    }
+
+    private static int compareNumbers(Object left, Object right){
+        if(left instanceof Long leftLong && right instanceof Long rightLong) return Long.compare(leftLong, rightLong);
+        return Double.compare(LoxNumbers.toDouble(left), LoxNumbers.toDouble(right));
+    }
+
+    private interface Chunk {
+        void run(Interpreter interpreter, int from, int to);
+    }
+
+    // Large lists are split into chunks on the fork-join pool, but only for functions without side effects;
+    // every chunk gets its own forked interpreter because an interpreter is bound to one thread.
+    private static void forEachChunk(Interpreter interpreter, LoxCallable function, int size, Chunk chunk){
+        if(size < PARALLEL_THRESHOLD || !(function instanceof LoxFunction loxFunction) || !loxFunction.isPure()){
+            chunk.run(interpreter, 0, size);
+            return;
+        }
+        int chunks = (size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            Interpreter worker = interpreter.fork();
+            try{
+                chunk.run(worker, c * CHUNK_SIZE, Math.min(size, (c + 1) * CHUNK_SIZE));
+            }
+            finally {
+                worker.retire();
+            }
+        });
+    }
+
+    private Object elementAt(int i){
+        return numbers != null ? LoxNumbers.fromDouble(numbers[i]) : objects[i];
+    }
+
+    private synchronized Object[] snapshot(){
+        Object[] elements = new Object[size];
+        for(int i = 0; i < size; i++)
+            elements[i] = elementAt(i);
+        return elements;
+    }
+
+    private int checkIndex(Object index){
+        if(!(index instanceof Long number))
+            throw new RuntimeError("List index must be an integer.");
+        if(number < 0 || number >= size)
+            throw new RuntimeError("List index out of range.");
+        return number.intValue();
+    }
+
+    private void generalize(){
+        objects = new Object[Math.max(numbers.length, 8)];
+        for(int i = 0; i < size; i++)
+            objects[i] = LoxNumbers.fromDouble(numbers[i]);
+        numbers = null;
+    }
+
+    // Formats a copy, so that nested lists are never locked while this one is.
+    @Override
+    public String toString() {
+        Object[] elements = snapshot();
+        StringBuilder builder = new StringBuilder("[");
+        for(int i = 0; i < elements.length; i++){
+            if(i > 0) builder.append(", ");
+            builder.append(Interpreter.stringify(elements[i]));
+        }
+        return builder.append("]").toString();
+    }
+}
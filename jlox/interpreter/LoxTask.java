@@ -0,0 +1,62 @@
+package jlox.interpreter;
+
+import jlox.error.RuntimeError;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class LoxTask {
+
+    private final FutureTask<Object> future;
+
+    private LoxTask(FutureTask<Object> future) {
+        this.future = future;
+    }
+
+    static LoxTask spawn(Interpreter parent, Object callee){
+        if(!(callee instanceof LoxCallable function) || function.getArity() != 0)
+            throw new RuntimeError("Can only spawn a function that takes no arguments.");
+
+        TaskGroup tasks = parent.getTasks();
+        Interpreter interpreter = parent.fork();
+        FutureTask<Object> future = new FutureTask<>(() -> {
+            try{
+                return interpreter.invoke(function, LoxCallable.NO_ARGUMENTS);
+            }
+            finally {
+                interpreter.retire();
+                tasks.finished(Thread.currentThread());
+            }
+        });
+        Thread thread = Thread.ofVirtual().name("lox-task").unstarted(future);
+        if(!tasks.track(thread))
+            throw new RuntimeError("Can't spawn a task after its script finished.");
+        thread.start();
+        return new LoxTask(future);
+    }
+
+    Object await(Interpreter interpreter){
+        try{
+            return future.get(interpreter.nanosUntilDeadline(), TimeUnit.NANOSECONDS);
+        }
+        catch (TimeoutException error){
+            throw interpreter.timeLimitExceeded();
+        }
+        catch (ExecutionException error){
+            if(error.getCause() instanceof RuntimeException cause)
+                throw cause;
+            throw new RuntimeError("Task failed: " + error.getCause() + ".");
+        }
+        catch (InterruptedException error){
+            Thread.currentThread().interrupt();
+            throw new RuntimeError("Interrupted while awaiting a task.");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "<Task>";
+    }
+}
@@ -0,0 +1,110 @@
+package jlox.interpreter;
+
+import jlox.runtime.LoxNumbers;
+import jlox.runtime.LoxString;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// What memoize(fn) returns: a call with the same arguments as an earlier one returns the cached result
+// without running the function. Numbers are keyed by value, so 2 and 2.0 share an entry, strings by
+// content and functions and classes by identity. Lists, dicts, instances and tasks can change while keeping
+// their identity, so calls passing one always run the function. The CAPACITY most recently used results are kept.
+final class MemoizedFunction implements LoxCallable {
+
+    static final int CAPACITY = 10_000;
+    private static final Object NIL = new Object();
+
+    private final LoxCallable function;
+    private final Map<Key, Object> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Object> eldest) {
+            return size() > CAPACITY;
+        }
+    };
+    private long hits;
+    private long misses;
+
+    MemoizedFunction(LoxCallable function) {
+        this.function = function;
+    }
+
+    @Override
+    public int getArity() {
+        return function.getArity();
+    }
+
+    // The lock is not held while the function runs, so recursive calls and parallel callers never wait on
+    // each other; two callers missing on the same arguments both compute it.
+    @Override
+    public Object call(Interpreter interpreter, Object[] arguments) {
+        if(!cacheable(arguments)){
+            synchronized (cache){
+                misses++;
+            }
+            return interpreter.invoke(function, arguments);
+        }
+        Key key = new Key(arguments);
+        synchronized (cache){
+            Object cached = cache.get(key);
+            if(cached != null){
+                hits++;
+                return cached == NIL ? null : cached;
+            }
+            misses++;
+        }
+        Object result = interpreter.invoke(function, arguments);
+        synchronized (cache){
+            cache.put(key, result == null ? NIL : result);
+        }
+        return result;
+    }
+
+    private static boolean cacheable(Object[] arguments){
+        for(Object argument : arguments){
+            if(argument != null && !(argument instanceof Boolean || argument instanceof Long || argument instanceof Double
+                    || argument instanceof LoxString || argument instanceof LoxCallable))
+                return false;
+        }
+        return true;
+    }
+
+    LoxDict stats(){
+        LoxDict stats = new LoxDict();
+        synchronized (cache){
+            stats.put(LoxString.of("hits"), LoxNumbers.box(hits));
+            stats.put(LoxString.of("misses"), LoxNumbers.box(misses));
+            stats.put(LoxString.of("size"), LoxNumbers.box(cache.size()));
+        }
+        return stats;
+    }
+
+    @Override
+    public String toString() {
+        return "<Memoized> " + function;
+    }
+
+    private static final class Key {
+
+        private final Object[] arguments;
+        private final int hash;
+
+        Key(Object[] arguments) {
+            this.arguments = new Object[arguments.length];
+            for(int i = 0; i < arguments.length; i++)
+                this.arguments[i] = arguments[i] instanceof Double number ? LoxNumbers.fromDouble(number) : arguments[i];
+            this.hash = Arrays.hashCode(this.arguments);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key key && Arrays.equals(arguments, key.arguments);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package jlox.interpreter;
+
+public class NativeFunction implements LoxCallable{
+
+    public interface Body {
+        Object call(Interpreter interpreter, Object[] arguments);
+    }
+
+    private final String name;
+    private final int arity;
+    private final Body body;
+
+    public NativeFunction(String name, int arity, Body body) {
+        this.name = name;
+        this.arity = arity;
+        this.body = body;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int getArity() {
+        return arity;
+    }
+
+    @Override
+    public Object call(Interpreter interpreter, Object[] arguments) {
+        if(!interpreter.timingNatives) return body.call(interpreter, arguments);
+
+        long start = System.nanoTime();
+        try{
+            return body.call(interpreter, arguments);
+        }
+        finally {
+            interpreter.addNativeTime(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "<Native Function> " + name;
+    }
+}
@@ -0,0 +1,147 @@
+package jlox.interpreter;
+
+import jlox.runtime.LoxString;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
+// Buffers script output and hands it to the underlying stream in large, encoded chunks.
+// LINE flushes after every newline, for terminals; FULL flushes only when the buffer fills
+// or when the interpreter finishes, for files and pipes.
+public class OutputSink {
+
+    public enum FlushPolicy {
+        LINE, FULL
+    }
+
+    public static final OutputSink STDOUT = new OutputSink(System.out, System.out.charset(),
+            System.console() != null ? FlushPolicy.LINE : FlushPolicy.FULL);
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final double MAX_PLAIN_INTEGER = 1e7;
+
+    private final CountingStream counter;
+    private final Writer writer;
+    private final FlushPolicy policy;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+
+    public OutputSink(OutputStream out, Charset charset, FlushPolicy policy) {
+        this.counter = new CountingStream(out);
+        this.writer = new OutputStreamWriter(counter, charset);
+        this.policy = policy;
+    }
+
+    public synchronized void print(Object value){
+        if(value instanceof Long number) appendNumber(number);
+        else if(value instanceof Double number) appendNumber(number);
+        else if(value instanceof LoxString string) string.forEachPart(this::append);
+        else append(Interpreter.stringify(value));
+    }
+
+    public synchronized void println(Object value){
+        print(value);
+        append('\n');
+        if(policy == FlushPolicy.LINE) flush();
+    }
+
+    public synchronized void flush(){
+        try{
+            writer.write(buffer, 0, position);
+            writer.flush();
+            position = 0;
+        }
+        catch (IOException error){
+            throw new UncheckedIOException(error);
+        }
+    }
+
+    // Encoded bytes handed to the underlying stream so far; output still in the buffer is not counted.
+    public long getBytesWritten(){
+        return counter.written;
+    }
+
+    // Integral values below 1e7 are written digit by digit; everything else takes the
+    // Double.toString path so the output stays identical to stringify.
+    private void appendNumber(double value){
+        long integral = (long) value;
+        if(integral != value || Math.abs(value) >= MAX_PLAIN_INTEGER || (value == 0 && 1 / value < 0)){
+            append(Interpreter.stringify(value));
+            return;
+        }
+        appendInteger(integral);
+    }
+
+    private void appendNumber(long value){
+        if(Math.abs(value) >= MAX_PLAIN_INTEGER){
+            append(Interpreter.stringify(value));
+            return;
+        }
+        appendInteger(value);
+    }
+
+    private void appendInteger(long integral){
+        if(BUFFER_SIZE - position < 8) flush();
+        if(integral < 0){
+            buffer[position++] = '-';
+            integral = -integral;
+        }
+        int end = position + digits(integral);
+        position = end;
+        do {
+            buffer[--end] = (char) ('0' + integral % 10);
+            integral /= 10;
+        } while (integral != 0);
+    }
+
+    private static int digits(long value){
+        int digits = 1;
+        while(value >= 10){
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    private void append(char ch){
+        if(position == BUFFER_SIZE) flush();
+        buffer[position++] = ch;
+    }
+
+    private static final class CountingStream extends FilterOutputStream {
+
+        private volatile long written;
+
+        CountingStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            written++;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            out.write(bytes, offset, length);
+            written += length;
+        }
+    }
+
+    private void append(String text){
+        int offset = 0;
+        while(offset < text.length()){
+            if(position == BUFFER_SIZE) flush();
+            int count = Math.min(text.length() - offset, BUFFER_SIZE - position);
+            text.getChars(offset, offset + count, buffer, position);
+            position += count;
+            offset += count;
+        }
+    }
+}
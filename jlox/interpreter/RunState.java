@@ -0,0 +1,22 @@
+package jlox.interpreter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// What one call of Interpreter.execute shares with every fork it starts: the step and allocation
+// budget and the deadline. Interpreters count locally and add their counts here at most every
+// CLOCK_CHECK_INTERVAL steps, so each fork running concurrently can overshoot a limit by one batch.
+final class RunState {
+
+    final AtomicLong steps = new AtomicLong();
+    final AtomicLong allocations = new AtomicLong();
+    final boolean timed;
+    final long deadline;
+
+    RunState(ExecutionLimits limits) {
+        // toNanos saturates, and a timeout too long to count in nanoseconds, about 292 years, is none at all.
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(limits.timeoutMillis());
+        this.timed = limits.hasTimeout() && timeoutNanos != Long.MAX_VALUE;
+        this.deadline = timed ? System.nanoTime() + timeoutNanos : 0;
+    }
+}
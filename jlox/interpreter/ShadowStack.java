@@ -0,0 +1,40 @@
+package jlox.interpreter;
+
+import java.util.Arrays;
+
+// The Lox functions currently active in one interpreter, pushed and popped around every call.
+// Only the interpreter's thread writes it; a sampler may read it from another thread at any time
+// and gets a consistent-enough view for profiling, never an exception.
+public class ShadowStack {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private volatile LoxFunction[] frames = new LoxFunction[INITIAL_CAPACITY];
+    private volatile int depth;
+
+    void push(LoxFunction function){
+        LoxFunction[] current = frames;
+        if(depth == current.length)
+            frames = current = Arrays.copyOf(current, current.length * 2);
+        current[depth] = function;
+        depth = depth + 1;
+    }
+
+    void pop(){
+        depth = depth - 1;
+    }
+
+    // Frame names from the outermost call to the innermost, as "name:line" of each declaration.
+    public String[] sample(){
+        int size = depth;
+        LoxFunction[] current = frames;
+        size = Math.min(size, current.length);
+        String[] names = new String[size];
+        for(int i = 0; i < size; i++){
+            LoxFunction function = current[i];
+            names[i] = function == null ? "?" : function.getDeclaration().getName().getLexeme()
+                    + ":" + function.getDeclaration().getName().getLine();
+        }
+        return names;
+    }
+}
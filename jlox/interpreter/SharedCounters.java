@@ -0,0 +1,31 @@
+package jlox.interpreter;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Counts shared by an interpreter and its forks, and read by JMX and Flight Recorder from other threads.
+// Every interpreter counts in plain fields of its own and adds them here at its step checks and when it
+// finishes, so forks running concurrently only meet in the striped adders.
+final class SharedCounters {
+
+    final LongAdder statements = new LongAdder();
+    final LongAdder environments = new LongAdder();
+    final LongAdder calls = new LongAdder();
+    final LongAdder instances = new LongAdder();
+    final LongAdder nativeNanos = new LongAdder();
+    final LongAccumulator maxCallDepth = new LongAccumulator(Math::max, 0);
+
+    void add(InterpreterStats stats){
+        statements.add(stats.statements());
+        environments.add(stats.environments());
+        calls.add(stats.calls());
+        instances.add(stats.instances());
+        nativeNanos.add(stats.nativeNanos());
+        maxCallDepth.accumulate(stats.maxCallDepth());
+    }
+
+    InterpreterStats sum(){
+        return new InterpreterStats(statements.sum(), environments.sum(), calls.sum(), instances.sum(),
+                (int) maxCallDepth.get(), nativeNanos.sum());
+    }
+}
@@ -0,0 +1,50 @@
+package jlox.interpreter;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// The tasks spawned by one script run or REPL session, including tasks spawned by tasks. They outlive the
+// execute call that spawned them, so a later REPL line can still await them, until the host stops the group.
+final class TaskGroup {
+
+    private final Set<Thread> tasks = ConcurrentHashMap.newKeySet();
+    private volatile boolean stopped;
+
+    // False once the group has stopped, in which case the task must not start.
+    boolean track(Thread task){
+        tasks.add(task);
+        if(!stopped) return true;
+        tasks.remove(task);
+        return false;
+    }
+
+    void finished(Thread task){
+        tasks.remove(task);
+    }
+
+    boolean isStopped(){
+        return stopped;
+    }
+
+    // Interrupts the tasks still running and waits for them, so that none outlives the group. Tasks
+    // blocked on a channel or another task wake up at once; busy ones stop at their next limit check.
+    void stop(){
+        stopped = true;
+        if(tasks.isEmpty()) return;
+        for(Thread task : tasks)
+            task.interrupt();
+        boolean interrupted = false;
+        for(Thread task : tasks){
+            while (true){
+                try{
+                    task.join();
+                    break;
+                }
+                catch (InterruptedException error){
+                    interrupted = true;
+                }
+            }
+        }
+        if(interrupted) Thread.currentThread().interrupt();
+    }
+}
@@ -4,9 +4,33 @@ import jlox.scanner.Token;
 
 import java.util.List;
 
-public abstract class Expr {
+public abstract sealed class Expr {
 	public abstract <T> T accept(Visitor<T> visitor);
 
+	// Set by the resolver on variable, assignment, this and super nodes: the number of scopes between the use
+	// and the declaration. -1 means global. Kept on the node so it is freed with the code, not held by the interpreter.
+	private int depth = -1;
+
+	public int getDepth() {
+		return depth;
+	}
+
+	public void setDepth(int depth) {
+		this.depth = depth;
+	}
+
+	// Set by the resolver when depth is -1: the global's slot, which is the same for a name throughout the code
+	// one Resolver resolves.
+	private int slot = -1;
+
+	public int getSlot() {
+		return slot;
+	}
+
+	public void setSlot(int slot) {
+		this.slot = slot;
+	}
+
 	public interface Visitor<T> {
 		T visitBinaryExpr (Binary expr);
 		T visitGroupingExpr (Grouping expr);
@@ -20,8 +44,11 @@ public abstract class Expr {
 		T visitSetExpr(Set expr);
 		T visitThisExpr(This expr);
 		T visitSuperExpr(Super expr);
+		T visitIncrementExpr(Increment expr);
+		T visitCompareExpr(Compare expr);
+		T visitUpdateFieldExpr(UpdateField expr);
 	}
-	public static class Binary extends Expr {
+	public static final class Binary extends Expr {
 
 		@Override
 		public <T> T accept(Visitor<T> visitor) {
@@ -49,7 +76,7 @@ public abstract class Expr {
 			return right;
 		}
 	}
-	public static class Grouping extends Expr {
+	public static final class Grouping extends Expr {
 
 		@Override
 		public <T> T accept(Visitor<T> visitor) {
@@ -64,7 +91,7 @@ public abstract class Expr {
 			return expression;
 		}
 	}
-	public static class Literal extends Expr {
+	public static final class Literal extends Expr {
 
 		@Override
 		public <T> T accept(Visitor<T> visitor) {
@@ -79,7 +106,7 @@ public abstract class Expr {
 			return value;
 		}
 	}
-	public static class Unary extends Expr {
+	public static final class Unary extends Expr {
 
 		@Override
 		public <T> T accept(Visitor<T> visitor) {
@@ -102,13 +129,14 @@ public abstract class Expr {
 		}
 	}
 
-	public static class Variable extends Expr{
+	public static final class Variable extends Expr{
 
 		public <T> T accept(Visitor<T> visitor){
 			return visitor.visitVariableExpr(this);
 		}
 
 		private final Token name;
+
 		public Variable(Token name){
 			this.name = name;
 		}
@@ -118,7 +146,7 @@ public abstract class Expr {
 		}
 	}
 
-	public static class Assign extends Expr{
+	public static final class Assign extends Expr{
 
 		@Override
 		public <T> T accept(Visitor<T> visitor) {
@@ -142,7 +170,7 @@ public abstract class Expr {
 		}
 	}
 
-	public static class Logical extends Expr{
+	public static final class Logical extends Expr{
 		public <T> T accept(Visitor<T> visitor){
 			return visitor.visitLogicalExpr(this);
 		}
@@ -170,7 +198,7 @@ public abstract class Expr {
 		}
 	}
 
-	public static class Call extends Expr{
+	public static final class Call extends Expr{
 		public <T> T accept(Visitor<T> visitor){
 			return visitor.visitCallExpr(this);
 		}
@@ -178,6 +206,7 @@ public abstract class Expr {
 		private final Expr callee;
 		private final Token paren;
 		private final List<Expr> arguments;
+		private Stmt.Function validatedDeclaration;
 
 		public Call(Expr callee, Token paren, List<Expr> arguments) {
 			this.callee = callee;
@@ -196,9 +225,17 @@ public abstract class Expr {
 		public List<Expr> getArguments() {
 			return arguments;
 		}
+
+		public Stmt.Function getValidatedDeclaration() {
+			return validatedDeclaration;
+		}
+
+		public void setValidatedDeclaration(Stmt.Function validatedDeclaration) {
+			this.validatedDeclaration = validatedDeclaration;
+		}
 	}
 
-	public static class Get extends Expr{
+	public static final class Get extends Expr{
 		@Override
 		public <T> T accept(Visitor<T> visitor) {
 			return visitor.visitGetExpr(this);
@@ -221,7 +258,7 @@ public abstract class Expr {
 		}
 	}
 
-	public static class Set extends Expr{
+	public static final class Set extends Expr{
 		@Override
 		public <T> T accept(Visitor<T> visitor) {
 			return visitor.visitSetExpr(this);
@@ -250,7 +287,7 @@ public abstract class Expr {
 		}
 	}
 
-	public static class This extends Expr{
+	public static final class This extends Expr{
 		@Override
 		public <T> T accept(Visitor<T> visitor) {
 			return visitor.visitThisExpr(this);
@@ -267,7 +304,7 @@ public abstract class Expr {
 		}
 	}
 
-	public static class Super extends Expr{
+	public static final class Super extends Expr{
 		@Override
 		public <T> T accept(Visitor<T> visitor) {
 			return visitor.visitSuperExpr(this);
@@ -289,4 +326,100 @@ public abstract class Expr {
 			return method;
 		}
 	}
+
+	// Fused form of 'name = name + constant' and 'name = name - constant'.
+	public static final class Increment extends Expr{
+		@Override
+		public <T> T accept(Visitor<T> visitor) {
+			return visitor.visitIncrementExpr(this);
+		}
+
+		private final Variable variable;
+		private final Token operator;
+		private final Object constant;
+
+		public Increment(Variable variable, Token operator, Object constant) {
+			this.variable = variable;
+			this.operator = operator;
+			this.constant = constant;
+		}
+
+		public Variable getVariable() {
+			return variable;
+		}
+
+		public Token getOperator() {
+			return operator;
+		}
+
+		public Object getConstant() {
+			return constant;
+		}
+	}
+
+	// Fused form of a comparison between a variable and another variable or a literal.
+	public static final class Compare extends Expr{
+		@Override
+		public <T> T accept(Visitor<T> visitor) {
+			return visitor.visitCompareExpr(this);
+		}
+
+		private final Variable left;
+		private final Token operator;
+		private final Expr right;
+
+		public Compare(Variable left, Token operator, Expr right) {
+			this.left = left;
+			this.operator = operator;
+			this.right = right;
+		}
+
+		public Variable getLeft() {
+			return left;
+		}
+
+		public Token getOperator() {
+			return operator;
+		}
+
+		public Expr getRight() {
+			return right;
+		}
+	}
+
+	// Fused form of 'object.name = object.name + value' (or '-') where object is a variable or 'this'.
+	public static final class UpdateField extends Expr{
+		@Override
+		public <T> T accept(Visitor<T> visitor) {
+			return visitor.visitUpdateFieldExpr(this);
+		}
+
+		private final Expr object;
+		private final Token name;
+		private final Token operator;
+		private final Expr value;
+
+		public UpdateField(Expr object, Token name, Token operator, Expr value) {
+			this.object = object;
+			this.name = name;
+			this.operator = operator;
+			this.value = value;
+		}
+
+		public Expr getObject() {
+			return object;
+		}
+
+		public Token getName() {
+			return name;
+		}
+
+		public Token getOperator() {
+			return operator;
+		}
+
+		public Expr getValue() {
+			return value;
+		}
+	}
 }
@@ -1,21 +1,28 @@
 package jlox.parser;
 
-import jlox.Jlox;
+import jlox.error.Diagnostics;
+import jlox.runtime.LoxNumbers;
 import jlox.scanner.Token;
 import jlox.scanner.TokenType;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 public class Parser {
 
     private static class ParseError extends RuntimeException{}
     private final List<Token> tokens;
+    private final Diagnostics diagnostics;
     private int current = 0;
+    private int statementCount = 0;
 
     public Parser(List<Token> tokens){
+        this(tokens, new Diagnostics());
+    }
+
+    public Parser(List<Token> tokens, Diagnostics diagnostics){
         this.tokens = tokens;
+        this.diagnostics = diagnostics;
     }
 
     public List<Stmt> parse(){
@@ -26,11 +33,17 @@ public class Parser {
         return statements;
     }
 
+    // Statements parsed so far; every statement's id is below this.
+    public int getStatementCount() {
+        return statementCount;
+    }
+
     private Stmt parseDeclaration(){
         try {
-            if(match(TokenType.VAR)) return parseVarDeclaration();
-            if(match(TokenType.FUN)) return parseFunction("function");
-            if(match(TokenType.CLASS)) return parseClassDeclaration();
+            Token start = peek();
+            if(match(TokenType.VAR)) return locate(start, parseVarDeclaration());
+            if(match(TokenType.FUN)) return locate(start, parseFunction("function"));
+            if(match(TokenType.CLASS)) return locate(start, parseClassDeclaration());
             return parseStatement();
         } catch (ParseError error){
             synchronize();
@@ -90,24 +103,32 @@ public class Parser {
     }
 
     private Stmt parseStatement(){
-        if(match(TokenType.FOR)) return parseForStatement();
-        if(match(TokenType.IF)) return parseIfStatement();
-        if(match(TokenType.WHILE)) return parseWhileStatement();
-        if(match(TokenType.LEFT_BRACE)) return new Stmt.Block(parseBlock());
-        if(match(TokenType.RETURN)) return parseReturnStatement();
-        return parseExpressionStatement();
+        Token start = peek();
+        if(match(TokenType.FOR)) return locate(start, parseForStatement());
+        if(match(TokenType.IF)) return locate(start, parseIfStatement());
+        if(match(TokenType.WHILE)) return locate(start, parseWhileStatement());
+        if(match(TokenType.LEFT_BRACE)) return locate(start, new Stmt.Block(parseBlock()));
+        if(match(TokenType.RETURN)) return locate(start, parseReturnStatement());
+        return locate(start, parseExpressionStatement());
+    }
+
+    private Stmt locate(Token start, Stmt statement){
+        statement.locate(statementCount++, start.getLine());
+        return statement;
     }
 
     private Stmt parseForStatement(){
+        Token keyword = previous();
         consume(TokenType.LEFT_PREN, "'(' is expected after 'for'.");
 
         Stmt initializer;
+        Token start = peek();
         if(match(TokenType.SEMICOLON))
             initializer = null;
         else if(match(TokenType.VAR))
-            initializer = parseVarDeclaration();
+            initializer = locate(start, parseVarDeclaration());
         else
-            initializer = parseExpressionStatement();
+            initializer = locate(start, parseExpressionStatement());
 
         Expr condition = null;
         if(!check(TokenType.SEMICOLON))
@@ -121,17 +142,9 @@ public class Parser {
 
         Stmt body = parseStatement();
 
-        if(increment != null)
-            body = new Stmt.Block(Arrays.asList(body, new Stmt.Expression(increment)));
-
         if(condition == null)
             condition = new Expr.Literal(true);
-        body = new Stmt.While(condition, body);
-
-        if(initializer != null)
-            body = new Stmt.Block(Arrays.asList(initializer, body));
-
-        return body;
+        return new Stmt.For(keyword, initializer, condition, increment, body);
     }
 
 
@@ -151,11 +164,12 @@ public class Parser {
 
 
     private Stmt parseWhileStatement(){
+        Token keyword = previous();
         consume(TokenType.LEFT_PREN, "'(' was expected after 'while'.");
         Expr condition = parseExpression();
         consume(TokenType.RIGHT_PAREN, "')' was expected after condition.");
         Stmt body = parseStatement();
-        return new Stmt.While(condition, body);
+        return new Stmt.While(keyword, condition, body);
     }
 
     private List<Stmt> parseBlock(){
@@ -195,11 +209,19 @@ public class Parser {
             Expr value = parseAssignment();
 
             if(expr instanceof Expr.Variable variable){
+                if(value instanceof Expr.Binary binary && isAdditive(binary)
+                        && binary.getLeft() instanceof Expr.Variable read && read.getName().getSymbol() == variable.getName().getSymbol()
+                        && binary.getRight() instanceof Expr.Literal literal && LoxNumbers.isNumber(literal.getValue()))
+                    return new Expr.Increment(read, binary.getOperator(), literal.getValue());
                 Token name = variable.getName();
                 return new Expr.Assign(name, value);
             }
 
             else if(expr instanceof Expr.Get getExpr){
+                if(value instanceof Expr.Binary binary && isAdditive(binary)
+                        && binary.getLeft() instanceof Expr.Get read && read.getName().getSymbol() == getExpr.getName().getSymbol()
+                        && isSameReceiver(read.getObject(), getExpr.getObject()))
+                    return new Expr.UpdateField(getExpr.getObject(), getExpr.getName(), binary.getOperator(), binary.getRight());
                 return new Expr.Set(getExpr.getObject(), getExpr.getName(), value);
             }
             error(equals, "Invalid assignment target.");
@@ -248,7 +270,9 @@ public class Parser {
         while(match(TokenType.GREATER, TokenType.GREATER_EQUAL, TokenType.LESS, TokenType.LESS_EQUAL)){
             Token operator = previous();
             Expr right = parseTerm();
-            expr = new Expr.Binary(expr, operator, right);
+            if(expr instanceof Expr.Variable variable && (right instanceof Expr.Variable || right instanceof Expr.Literal))
+                expr = new Expr.Compare(variable, operator, right);
+            else expr = new Expr.Binary(expr, operator, right);
         }
         return expr;
     }
@@ -328,6 +352,18 @@ public class Parser {
         throw error(peek(), "Expression expected.");
     }
 
+    private boolean isAdditive(Expr.Binary binary){
+        TokenType type = binary.getOperator().getType();
+        return type == TokenType.PLUS || type == TokenType.MINUS;
+    }
+
+    // Reading a variable or 'this' has no side effects, so both sides of the update may share one evaluation.
+    private boolean isSameReceiver(Expr first, Expr second){
+        if(first instanceof Expr.This && second instanceof Expr.This) return true;
+        return first instanceof Expr.Variable firstVar && second instanceof Expr.Variable secondVar
+                && firstVar.getName().getSymbol() == secondVar.getName().getSymbol();
+    }
+
     private boolean match(TokenType ...types){
         for(TokenType type : types){
             if(check(type)){
@@ -382,7 +418,7 @@ public class Parser {
     }
 
     private ParseError error(Token token, String message){
-        Jlox.error(token, message);
+        diagnostics.error(token, message);
 
         return new ParseError();
     }
@@ -4,20 +4,39 @@ import jlox.scanner.Token;
 
 import java.util.List;
 
-public abstract class Stmt {
+public abstract sealed class Stmt {
     public interface Visitor{
         void visitExpressionStmt(Expression stmt);
         void visitVarStmt(Var stmt);
         void visitBlockStmt(Block stmt);
         void visitIfStmt(If stmt);
         void visitWhileStmt(While stmt);
+        void visitForStmt(For stmt);
         void visitFunStmt(Function stmt);
         void visitReturnStmt(Return stmt);
         void visitClassStmt(Class stmt);
     }
     public abstract void accept(Visitor visitor);
 
-    public static class Expression extends Stmt{
+    // Set by the parser: ids number the statements of one parse densely from 0. Method declarations keep -1,
+    // they are never executed as statements.
+    private int id = -1;
+    private int line;
+
+    void locate(int id, int line){
+        this.id = id;
+        this.line = line;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public static final class Expression extends Stmt{
 
         @Override
         public void accept(Visitor visitor) {
@@ -35,7 +54,7 @@ public abstract class Stmt {
     }
 
 
-    public static class Var extends Stmt{
+    public static final class Var extends Stmt{
         public void accept(Visitor visitor){
             visitor.visitVarStmt(this);
         }
@@ -58,7 +77,7 @@ public abstract class Stmt {
         }
     }
 
-    public static class Block extends Stmt{
+    public static final class Block extends Stmt{
 
         @Override
         public void accept(Visitor visitor){
@@ -66,17 +85,25 @@ public abstract class Stmt {
         }
 
         private final List<Stmt> statements;
+        private final boolean scoped;
 
         public Block(List<Stmt> statements){
             this.statements = statements;
+            this.scoped = statements.stream().anyMatch(statement ->
+                    statement instanceof Var || statement instanceof Function || statement instanceof Class);
         }
 
         public List<Stmt> getStatements() {
             return statements;
         }
+
+        // A block that declares nothing needs no environment of its own.
+        public boolean isScoped() {
+            return scoped;
+        }
     }
 
-    public static class If extends Stmt{
+    public static final class If extends Stmt{
         @Override
         public void accept(Visitor visitor) {
             visitor.visitIfStmt(this);
@@ -106,19 +133,25 @@ public abstract class Stmt {
         }
     }
 
-    public static class While extends Stmt{
+    public static final class While extends Stmt{
         public void accept(Visitor visitor){
             visitor.visitWhileStmt(this);
         }
 
+        private final Token keyword;
         private final Expr condition;
         private final Stmt body;
 
-        public While(Expr condition, Stmt body) {
+        public While(Token keyword, Expr condition, Stmt body) {
+            this.keyword = keyword;
             this.condition = condition;
             this.body = body;
         }
 
+        public Token getKeyword() {
+            return keyword;
+        }
+
         public Expr getCondition() {
             return condition;
         }
@@ -128,7 +161,69 @@ public abstract class Stmt {
         }
     }
 
-    public static class Function extends Stmt{
+    public static final class For extends Stmt{
+        public void accept(Visitor visitor){
+            visitor.visitForStmt(this);
+        }
+
+        private final Token keyword;
+        private final Stmt initializer;
+        private final Expr condition;
+        private final Expr increment;
+        private final Stmt body;
+
+        private boolean counted;
+        private boolean counterRead;
+
+        public For(Token keyword, Stmt initializer, Expr condition, Expr increment, Stmt body) {
+            this.keyword = keyword;
+            this.initializer = initializer;
+            this.condition = condition;
+            this.increment = increment;
+            this.body = body;
+        }
+
+        public Token getKeyword() {
+            return keyword;
+        }
+
+        public Stmt getInitializer() {
+            return initializer;
+        }
+
+        public Expr getCondition() {
+            return condition;
+        }
+
+        public Expr getIncrement() {
+            return increment;
+        }
+
+        public Stmt getBody() {
+            return body;
+        }
+
+        // Set by the resolver when the loop is `for(var i = n; i < bound; i = i + step)`
+        // and nothing but the increment assigns i.
+        public boolean isCounted() {
+            return counted;
+        }
+
+        public void setCounted(boolean counted) {
+            this.counted = counted;
+        }
+
+        // Whether the body or a closure in it reads the counter while the loop runs.
+        public boolean isCounterRead() {
+            return counterRead;
+        }
+
+        public void setCounterRead(boolean counterRead) {
+            this.counterRead = counterRead;
+        }
+    }
+
+    public static final class Function extends Stmt{
         @Override
         public void accept(Visitor visitor) {
             visitor.visitFunStmt(this);
@@ -157,7 +252,7 @@ public abstract class Stmt {
         }
     }
 
-    public static class Return extends Stmt{
+    public static final class Return extends Stmt{
         @Override
         public void accept(Visitor visitor) {
             visitor.visitReturnStmt(this);
@@ -180,7 +275,7 @@ public abstract class Stmt {
         }
     }
 
-    public static class Class extends Stmt{
+    public static final class Class extends Stmt{
         @Override
         public void accept(Visitor visitor) {
             visitor.visitClassStmt(this);
@@ -0,0 +1,57 @@
+package jlox.perf;
+
+import jlox.parser.Expr;
+import jlox.parser.Stmt;
+
+import java.util.List;
+
+// Counts every statement and expression node in a program.
+public final class AstCounter {
+
+    private AstCounter() {
+    }
+
+    public static long count(List<? extends Stmt> statements){
+        long nodes = 0;
+        for(Stmt statement : statements)
+            nodes += count(statement);
+        return nodes;
+    }
+
+    private static long count(Stmt statement){
+        if(statement == null) return 0;
+        return 1 + switch (statement){
+            case Stmt.Expression expression -> count(expression.getExpression());
+            case Stmt.Var var -> count(var.getInitializer());
+            case Stmt.Block block -> count(block.getStatements());
+            case Stmt.If ifStmt -> count(ifStmt.getCondition()) + count(ifStmt.getThenBranch()) + count(ifStmt.getElseBranch());
+            case Stmt.While whileStmt -> count(whileStmt.getCondition()) + count(whileStmt.getBody());
+            case Stmt.For forStmt -> count(forStmt.getInitializer()) + count(forStmt.getCondition())
+                    + count(forStmt.getIncrement()) + count(forStmt.getBody());
+            case Stmt.Function function -> count(function.getBody());
+            case Stmt.Return returnStmt -> count(returnStmt.getValue());
+            case Stmt.Class classStmt -> count(classStmt.getSuperClass()) + count(classStmt.getMethods());
+        };
+    }
+
+    private static long count(Expr expr){
+        if(expr == null) return 0;
+        return 1 + switch (expr){
+            case Expr.Binary binary -> count(binary.getLeft()) + count(binary.getRight());
+            case Expr.Grouping grouping -> count(grouping.getExpression());
+            case Expr.Unary unary -> count(unary.getRight());
+            case Expr.Assign assign -> count(assign.getValue());
+            case Expr.Logical logical -> count(logical.getLeft()) + count(logical.getRight());
+            case Expr.Call call -> count(call.getCallee()) + call.getArguments().stream().mapToLong(AstCounter::count).sum();
+            case Expr.Get get -> count(get.getObject());
+            case Expr.Set set -> count(set.getObject()) + count(set.getValue());
+            case Expr.Increment increment -> count(increment.getVariable());
+            case Expr.Compare compare -> count(compare.getLeft()) + count(compare.getRight());
+            case Expr.UpdateField update -> count(update.getObject()) + count(update.getValue());
+            case Expr.Literal literal -> 0;
+            case Expr.Variable variable -> 0;
+            case Expr.This thisExpr -> 0;
+            case Expr.Super superExpr -> 0;
+        };
+    }
+}
@@ -0,0 +1,176 @@
+package jlox.perf;
+
+import jlox.Jlox;
+import jlox.interpreter.ExecutionLimits;
+import jlox.interpreter.OutputSink;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Runs every .lox workload in a corpus directory, plus a large generated script, and reports
+// one JSON line per workload. One operation is a full prepare and execute of the script.
+// With a baseline, any metric that got worse by more than the threshold fails the run. Timings and
+// heap sizes only compare on the same machine and JVM, so baselines are saved locally, not shared.
+public class BenchRunner {
+
+    private static final int GENERATED_UNITS = 2000;
+    private static final Pattern NAME = Pattern.compile("\"name\": \"([^\"]+)\"");
+    private static final Pattern METRIC = Pattern.compile("\"(\\w+)\": (-?[0-9.Ee+-]+)");
+
+    record Result(String name, double opsPerSecond, double allocatedBytesPerSecond,
+                  double allocatedBytesPerOp, long peakHeapBytes) {
+
+        String toJson(){
+            return String.format(Locale.ROOT,
+                    "{\"name\": \"%s\", \"opsPerSecond\": %.3f, \"allocatedBytesPerSecond\": %.0f, "
+                            + "\"allocatedBytesPerOp\": %.0f, \"peakHeapBytes\": %d}",
+                    name, opsPerSecond, allocatedBytesPerSecond, allocatedBytesPerOp, peakHeapBytes);
+        }
+    }
+
+    private final OutputSink discard = new OutputSink(OutputStream.nullOutputStream(), StandardCharsets.UTF_8,
+            OutputSink.FlushPolicy.FULL);
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private Path corpus = Path.of("bench");
+    private Path baseline;
+    private Path saveBaseline;
+    private double threshold = 10;
+    private int warmup = 3;
+    private int iterations = 5;
+
+    // Usage: --bench [corpus] [--baseline file] [--save-baseline file] [--threshold percent] [--warmup n]
+    // [--iterations n]. Throws IllegalArgumentException for a missing or invalid option value.
+    public static BenchRunner fromArgs(String[] args){
+        BenchRunner runner = new BenchRunner();
+        for(int i = 0; i < args.length; i++){
+            switch (args[i]){
+                case "--baseline" -> runner.baseline = Path.of(value(args, ++i));
+                case "--save-baseline" -> runner.saveBaseline = Path.of(value(args, ++i));
+                case "--threshold" -> runner.threshold = atLeast(Double.parseDouble(value(args, ++i)), 0, args[i - 1]);
+                case "--warmup" -> runner.warmup = (int) atLeast(Integer.parseInt(value(args, ++i)), 0, args[i - 1]);
+                case "--iterations" -> runner.iterations = (int) atLeast(Integer.parseInt(value(args, ++i)), 1, args[i - 1]);
+                default -> {
+                    if(args[i].startsWith("--")) throw new IllegalArgumentException("Unknown option " + args[i] + ".");
+                    runner.corpus = Path.of(args[i]);
+                }
+            }
+        }
+        return runner;
+    }
+
+    private static String value(String[] args, int i){
+        if(i >= args.length) throw new IllegalArgumentException("Missing value for " + args[i - 1] + ".");
+        return args[i];
+    }
+
+    private static double atLeast(double value, double minimum, String option){
+        if(value < minimum) throw new IllegalArgumentException(option + " must be at least " + (long) minimum + ".");
+        return value;
+    }
+
+    public int run() throws IOException {
+        Map<String, String> workloads = new LinkedHashMap<>();
+        try(Stream<Path> files = Files.list(corpus)){
+            for(Path file : files.filter(file -> file.toString().endsWith(".lox")).sorted().toList()){
+                String name = file.getFileName().toString();
+                workloads.put(name.substring(0, name.length() - ".lox".length()), Files.readString(file));
+            }
+        }
+        workloads.put("generated", Workloads.generated(GENERATED_UNITS));
+
+        List<Result> results = new ArrayList<>();
+        StringBuilder json = new StringBuilder("[\n");
+        System.out.println("[");
+        int remaining = workloads.size();
+        for(Map.Entry<String, String> workload : workloads.entrySet()){
+            Result result = measure(workload.getKey(), workload.getValue());
+            results.add(result);
+            String line = "  " + result.toJson() + (--remaining > 0 ? "," : "");
+            System.out.println(line);
+            json.append(line).append('\n');
+        }
+        System.out.println("]");
+        if(saveBaseline != null) Files.writeString(saveBaseline, json.append("]\n"));
+
+        if(baseline == null) return 0;
+        return compare(results, readBaseline(baseline)) ? 0 : 1;
+    }
+
+    private Result measure(String name, String source){
+        for(int i = 0; i < warmup; i++)
+            runOnce(source);
+
+        System.gc();
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP).toList();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for(int i = 0; i < iterations; i++)
+            runOnce(source);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        long peakHeap = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+
+        return new Result(name, iterations / seconds, allocated / seconds, (double) allocated / iterations, peakHeap);
+    }
+
+    private void runOnce(String source){
+        Jlox.prepare(source).execute(Map.of(), ExecutionLimits.UNLIMITED, discard);
+    }
+
+    // Prints every metric that moved the wrong way by more than the threshold; true when none did.
+    private boolean compare(List<Result> results, Map<String, Map<String, Double>> previous){
+        boolean passed = true;
+        for(Result result : results){
+            Map<String, Double> before = previous.get(result.name());
+            if(before == null) continue;
+            passed &= check(result.name(), "opsPerSecond", before, result.opsPerSecond(), false);
+            passed &= check(result.name(), "allocatedBytesPerOp", before, result.allocatedBytesPerOp(), true);
+            passed &= check(result.name(), "peakHeapBytes", before, result.peakHeapBytes(), true);
+        }
+        return passed;
+    }
+
+    private boolean check(String workload, String metric, Map<String, Double> before, double now, boolean lowerIsBetter){
+        Double old = before.get(metric);
+        if(old == null || old == 0) return true;
+        double change = (now - old) / old * 100;
+        boolean regressed = lowerIsBetter ? change > threshold : -change > threshold;
+        if(regressed)
+            System.err.printf(Locale.ROOT, "Regression in %s: %s %.1f -> %.1f (%+.1f%%)%n", workload, metric, old, now, change);
+        return !regressed;
+    }
+
+    private static Map<String, Map<String, Double>> readBaseline(Path file) throws IOException {
+        Map<String, Map<String, Double>> baseline = new HashMap<>();
+        for(String line : Files.readAllLines(file)){
+            Matcher name = NAME.matcher(line);
+            if(!name.find()) continue;
+            Map<String, Double> metrics = new HashMap<>();
+            Matcher metric = METRIC.matcher(line);
+            while (metric.find())
+                metrics.put(metric.group(1), Double.parseDouble(metric.group(2)));
+            baseline.put(name.group(1), metrics);
+        }
+        return baseline;
+    }
+}
@@ -0,0 +1,102 @@
+package jlox.perf;
+
+import jlox.interpreter.Interpreter;
+import jlox.parser.Stmt;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+
+// Counts how often each statement of one parsed program executes, in a long[] indexed by statement id,
+// and reports the counts per line: as an lcov tracefile for coverage tools, and as a list of the hottest
+// lines. A line's lcov count is that of its most executed statement; the hottest lines are ranked by the
+// statements executed on them in total. Without coverage the interpreter pays one null check per statement.
+public class LineCoverage {
+
+    private final long[] counts;
+    private final int[] lines;
+
+    public LineCoverage(List<Stmt> program, int statementCount) {
+        this.counts = new long[statementCount];
+        this.lines = new int[statementCount];
+        record(program);
+    }
+
+    public void attach(Interpreter interpreter){
+        interpreter.setStatementCounts(counts);
+    }
+
+    public long getCount(Stmt statement){
+        return counts[statement.getId()];
+    }
+
+    private void record(List<? extends Stmt> statements){
+        for(Stmt statement : statements)
+            record(statement);
+    }
+
+    private void record(Stmt statement){
+        if(statement == null) return;
+        if(statement.getId() >= 0) lines[statement.getId()] = statement.getLine();
+        switch (statement){
+            case Stmt.Block block -> record(block.getStatements());
+            case Stmt.If ifStmt -> {
+                record(ifStmt.getThenBranch());
+                record(ifStmt.getElseBranch());
+            }
+            case Stmt.While whileStmt -> record(whileStmt.getBody());
+            case Stmt.For forStmt -> {
+                record(forStmt.getInitializer());
+                record(forStmt.getBody());
+            }
+            case Stmt.Function function -> record(function.getBody());
+            case Stmt.Class classStmt -> record(classStmt.getMethods());
+            case Stmt.Expression expression -> {}
+            case Stmt.Var var -> {}
+            case Stmt.Return returnStmt -> {}
+        }
+    }
+
+    // Line -> {highest statement count, statements executed}, for every line holding a statement.
+    private TreeMap<Integer, long[]> byLine(){
+        TreeMap<Integer, long[]> byLine = new TreeMap<>();
+        for(int id = 0; id < counts.length; id++){
+            long[] line = byLine.computeIfAbsent(lines[id], key -> new long[2]);
+            line[0] = Math.max(line[0], counts[id]);
+            line[1] += counts[id];
+        }
+        return byLine;
+    }
+
+    public void writeLcov(Writer out, String sourceFile) throws IOException {
+        TreeMap<Integer, long[]> byLine = byLine();
+        int hit = 0;
+        out.write("TN:\nSF:" + sourceFile + "\n");
+        for(var line : byLine.entrySet()){
+            out.write("DA:" + line.getKey() + "," + line.getValue()[0] + "\n");
+            if(line.getValue()[0] > 0) hit++;
+        }
+        out.write("LF:" + byLine.size() + "\nLH:" + hit + "\nend_of_record\n");
+        out.flush();
+    }
+
+    public void reportHottest(PrintStream out, String source, int limit){
+        String[] sourceLines = source.split("\n", -1);
+        TreeMap<Integer, long[]> byLine = byLine();
+        Integer[] hottest = byLine.keySet().stream()
+                .filter(line -> byLine.get(line)[1] > 0)
+                .sorted((a, b) -> Long.compare(byLine.get(b)[1], byLine.get(a)[1]))
+                .limit(limit)
+                .toArray(Integer[]::new);
+        long total = Arrays.stream(counts).sum();
+        out.printf("%-6s %14s %7s  %s%n", "line", "statements", "share", "source");
+        for(int line : hottest){
+            long executed = byLine.get(line)[1];
+            String text = line - 1 < sourceLines.length ? sourceLines[line - 1].strip() : "";
+            out.printf("%-6d %14d %6.1f%%  %s%n", line, executed, 100.0 * executed / total, text);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package jlox.perf;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Wall time and bytes allocated by the current thread for each phase of a run, plus named counts.
+// DISABLED runs the phases without measuring anything.
+public class RunStats {
+
+    public static final RunStats DISABLED = new RunStats(false);
+
+    private record Phase(String name, long nanos, long allocatedBytes) {
+    }
+
+    private final boolean enabled;
+    private final List<Phase> phases = new ArrayList<>();
+    private final Map<String, Long> counts = new LinkedHashMap<>();
+    private final com.sun.management.ThreadMXBean threads;
+
+    public RunStats() {
+        this(true);
+    }
+
+    private RunStats(boolean enabled) {
+        this.enabled = enabled;
+        this.threads = enabled ? (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean() : null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public <T> T phase(String name, Supplier<T> work){
+        if(!enabled) return work.get();
+
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        try{
+            return work.get();
+        }
+        finally {
+            phases.add(new Phase(name, System.nanoTime() - start,
+                    threads.getCurrentThreadAllocatedBytes() - allocatedBefore));
+        }
+    }
+
+    public void count(String name, long value){
+        if(enabled) counts.merge(name, value, Long::sum);
+    }
+
+    public void report(PrintStream out){
+        out.printf("%n%-12s %12s %16s%n", "phase", "time (ms)", "allocated (B)");
+        for(Phase phase : phases)
+            out.printf("%-12s %12.3f %16d%n", phase.name(), phase.nanos() / 1e6, phase.allocatedBytes());
+        for(Map.Entry<String, Long> count : counts.entrySet())
+            out.printf("%-20s %d%n", count.getKey(), count.getValue());
+    }
+}
@@ -0,0 +1,52 @@
+package jlox.perf;
+
+import jlox.interpreter.Interpreter;
+import jlox.interpreter.InterpreterListener;
+import jlox.interpreter.LoxCallable;
+import jlox.parser.Stmt;
+import jlox.scanner.Token;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+// Prints every statement, call and assignment of an instrumented interpreter, indented by call depth.
+public class Tracer implements InterpreterListener {
+
+    private final PrintStream out;
+
+    public Tracer(PrintStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void statementEntered(Interpreter interpreter, Stmt statement) {
+        print(interpreter, "line " + statement.getLine());
+    }
+
+    @Override
+    public void callEntered(Interpreter interpreter, LoxCallable function, Object[] arguments) {
+        print(interpreter, "call " + function + Arrays.stream(arguments)
+                .map(Interpreter::stringify)
+                .collect(Collectors.joining(", ", "(", ")")));
+    }
+
+    @Override
+    public void callExited(Interpreter interpreter, LoxCallable function, Object result) {
+        print(interpreter, "return " + Interpreter.stringify(result) + " from " + function);
+    }
+
+    @Override
+    public void callFailed(Interpreter interpreter, LoxCallable function, Throwable error) {
+        print(interpreter, "throw " + error.getMessage() + " from " + function);
+    }
+
+    @Override
+    public void variableAssigned(Interpreter interpreter, Token name, Object value) {
+        print(interpreter, name.getLexeme() + " = " + Interpreter.stringify(value));
+    }
+
+    private void print(Interpreter interpreter, String event){
+        out.println("  ".repeat(interpreter.getCallDepth()) + event);
+    }
+}
@@ -0,0 +1,26 @@
+package jlox.perf;
+
+// Generated workloads shared by the --bench runner and the JMH benchmarks, so both measure the same script.
+public final class Workloads {
+
+    private Workloads() {
+    }
+
+    // Many small functions and classes, so the front end dominates the run.
+    public static String generated(int units){
+        StringBuilder source = new StringBuilder();
+        for(int i = 0; i < units; i++){
+            source.append("fun f").append(i).append("(a, b) {\n")
+                    .append("    var total = a;\n")
+                    .append("    if (a < b and b != 3) total = total + b * 2.5; else total = total - 1;\n")
+                    .append("    return total + \"").append(i).append("\";\n")
+                    .append("}\n")
+                    .append("class C").append(i).append(" {\n")
+                    .append("    init(x) { this.x = x; }\n")
+                    .append("    get() { return this.x; }\n")
+                    .append("}\n")
+                    .append("var v").append(i).append(" = C").append(i).append("(f").append(i).append("(1, 2)).get();\n");
+        }
+        return source.toString();
+    }
+}
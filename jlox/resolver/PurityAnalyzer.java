@@ -0,0 +1,212 @@
+package jlox.resolver;
+
+import jlox.parser.Expr;
+import jlox.parser.Stmt;
+import jlox.scanner.Token;
+
+// Conservatively decides whether a function is free of side effects: it may read anything,
+// but only assign variables it declares itself, never set fields or declare classes, and only
+// call variables from outside it that the caller's Callees accepts. Variables are told apart by
+// the depth the Resolver gave them, counting the scopes the Resolver opens inside the function.
+public class PurityAnalyzer implements Expr.Visitor<Void>, Stmt.Visitor {
+
+    // Decides on a callee declared outside the analyzed function, found depth environments out
+    // from the function's closure, or among the globals when depth is -1.
+    public interface Callees {
+        boolean isPure(Token name, int depth);
+    }
+
+    private final Callees callees;
+    private int scopes;
+    private boolean pure = true;
+
+    private PurityAnalyzer(Callees callees) {
+        this.callees = callees;
+    }
+
+    public static boolean isPure(Stmt.Function function, Callees callees){
+        PurityAnalyzer analyzer = new PurityAnalyzer(callees);
+        analyzer.analyzeFunction(function);
+        return analyzer.pure;
+    }
+
+    private void analyzeFunction(Stmt.Function function){
+        scopes++;
+        for(Stmt statement : function.getBody()){
+            if(!pure) break;
+            analyze(statement);
+        }
+        scopes--;
+    }
+
+    private boolean isLocal(Expr.Variable variable){
+        return isLocal(variable.getDepth());
+    }
+
+    private boolean isLocal(int depth){
+        return depth >= 0 && depth < scopes;
+    }
+
+    private void analyze(Stmt statement){
+        statement.accept(this);
+    }
+
+    private void analyze(Expr expression){
+        expression.accept(this);
+    }
+
+    @Override
+    public Void visitBinaryExpr(Expr.Binary expr) {
+        analyze(expr.getLeft());
+        analyze(expr.getRight());
+        return null;
+    }
+
+    @Override
+    public Void visitGroupingExpr(Expr.Grouping expr) {
+        analyze(expr.getExpression());
+        return null;
+    }
+
+    @Override
+    public Void visitLiteralExpr(Expr.Literal expr) {
+        return null;
+    }
+
+    @Override
+    public Void visitUnaryExpr(Expr.Unary expr) {
+        analyze(expr.getRight());
+        return null;
+    }
+
+    @Override
+    public Void visitVariableExpr(Expr.Variable expr) {
+        return null;
+    }
+
+    @Override
+    public Void visitAssignExpr(Expr.Assign expr) {
+        if(!isLocal(expr.getDepth()))
+            pure = false;
+        analyze(expr.getValue());
+        return null;
+    }
+
+    @Override
+    public Void visitLogicalExpr(Expr.Logical expr) {
+        analyze(expr.getLeft());
+        analyze(expr.getRight());
+        return null;
+    }
+
+    @Override
+    public Void visitCallExpr(Expr.Call expr) {
+        if(!(expr.getCallee() instanceof Expr.Variable callee) || isLocal(callee)
+                || !callees.isPure(callee.getName(), callee.getDepth() < 0 ? -1 : callee.getDepth() - scopes))
+            pure = false;
+        for(Expr argument : expr.getArguments())
+            analyze(argument);
+        return null;
+    }
+
+    @Override
+    public Void visitGetExpr(Expr.Get expr) {
+        analyze(expr.getObject());
+        return null;
+    }
+
+    @Override
+    public Void visitSetExpr(Expr.Set expr) {
+        pure = false;
+        return null;
+    }
+
+    @Override
+    public Void visitThisExpr(Expr.This expr) {
+        return null;
+    }
+
+    @Override
+    public Void visitSuperExpr(Expr.Super expr) {
+        return null;
+    }
+
+    @Override
+    public Void visitIncrementExpr(Expr.Increment expr) {
+        if(!isLocal(expr.getVariable()))
+            pure = false;
+        return null;
+    }
+
+    @Override
+    public Void visitCompareExpr(Expr.Compare expr) {
+        analyze(expr.getRight());
+        return null;
+    }
+
+    @Override
+    public Void visitUpdateFieldExpr(Expr.UpdateField expr) {
+        pure = false;
+        return null;
+    }
+
+    @Override
+    public void visitExpressionStmt(Stmt.Expression stmt) {
+        analyze(stmt.getExpression());
+    }
+
+    @Override
+    public void visitVarStmt(Stmt.Var stmt) {
+        if(stmt.getInitializer() != null)
+            analyze(stmt.getInitializer());
+    }
+
+    @Override
+    public void visitBlockStmt(Stmt.Block stmt) {
+        if(stmt.isScoped()) scopes++;
+        for(Stmt statement : stmt.getStatements())
+            analyze(statement);
+        if(stmt.isScoped()) scopes--;
+    }
+
+    @Override
+    public void visitIfStmt(Stmt.If stmt) {
+        analyze(stmt.getCondition());
+        analyze(stmt.getThenBranch());
+        if(stmt.getElseBranch() != null) analyze(stmt.getElseBranch());
+    }
+
+    @Override
+    public void visitWhileStmt(Stmt.While stmt) {
+        analyze(stmt.getCondition());
+        analyze(stmt.getBody());
+    }
+
+    @Override
+    public void visitForStmt(Stmt.For stmt) {
+        if(stmt.getInitializer() != null){
+            scopes++;
+            analyze(stmt.getInitializer());
+        }
+        analyze(stmt.getCondition());
+        analyze(stmt.getBody());
+        if(stmt.getIncrement() != null) analyze(stmt.getIncrement());
+        if(stmt.getInitializer() != null) scopes--;
+    }
+
+    @Override
+    public void visitFunStmt(Stmt.Function stmt) {
+        analyzeFunction(stmt);
+    }
+
+    @Override
+    public void visitReturnStmt(Stmt.Return stmt) {
+        if(stmt.getValue() != null)
+            analyze(stmt.getValue());
+    }
+
+    @Override
+    public void visitClassStmt(Stmt.Class stmt) {
+        pure = false;
+    }
+}
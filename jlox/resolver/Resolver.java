@@ -1,14 +1,18 @@
 package jlox.resolver;
 
-import jlox.Jlox;
-import jlox.interpreter.Interpreter;
+import jlox.error.Diagnostics;
 import jlox.parser.Expr;
 import jlox.parser.Stmt;
+import jlox.scanner.Symbol;
 import jlox.scanner.Token;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor {
 
@@ -20,17 +24,29 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor {
         NONE, CLASS, SUBCLASS
     }
 
-    private final Interpreter interpreter;
     private final ArrayList<HashMap<String, Boolean>> scopes = new ArrayList<>();
+    private final Set<Map<String, Boolean>> readScopes = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<Map<String, Boolean>> assignedScopes = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    // Numbers the global names of everything this resolver resolves, a script or a REPL session, from 0.
+    private final Map<Symbol, Integer> globalSlots = new HashMap<>();
 
     private FunctionType currentFunction = FunctionType.NONE;
     private ClassType currentClass = ClassType.NONE;
 
-    public Resolver(Interpreter interpreter) {
-        this.interpreter = interpreter;
-    }
+    private Diagnostics diagnostics;
 
     public void resolve(List<Stmt> statements){
+        resolve(statements, new Diagnostics());
+    }
+
+    // Scopes and class/function state carry over between calls; errors go to this call's diagnostics.
+    public void resolve(List<Stmt> statements, Diagnostics diagnostics){
+        this.diagnostics = diagnostics;
+        resolveAll(statements);
+    }
+
+    private void resolveAll(List<Stmt> statements){
         for(Stmt statement : statements)
             resolve(statement);
     }
@@ -63,7 +79,7 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor {
     public Void visitVariableExpr(Expr.Variable expr) {
         var scope = !scopes.isEmpty() ? scopes.get(scopes.size() - 1) : null;
         if(scope != null && scope.get(expr.getName().getLexeme()) == Boolean.FALSE)
-            Jlox.error(expr.getName(), "Can't read local variable in its own initializer.");
+            diagnostics.error(expr.getName(), "Can't read local variable in its own initializer.");
 
         resolveLocal(expr, expr.getName());
         return null;
@@ -74,6 +90,7 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor {
     public Void visitAssignExpr(Expr.Assign expr) {
         resolve(expr.getValue());
         resolveLocal(expr, expr.getName());
+        markAssigned(expr.getName());
         return null;
     }
 
@@ -109,8 +126,8 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor {
 
     @Override
     public Void visitThisExpr(Expr.This expr) {
-        if(currentClass != ClassType.CLASS){
-            Jlox.error(expr.getKeyword(), "Can't use 'this' outside of a class.");
+        if(currentClass == ClassType.NONE){
+            diagnostics.error(expr.getKeyword(), "Can't use 'this' outside of a class.");
         }
         resolveLocal(expr, expr.getKeyword());
         return null;
@@ -119,13 +136,34 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor {
     @Override
     public Void visitSuperExpr(Expr.Super expr) {
         if(currentClass == ClassType.NONE)
-            Jlox.error(expr.getKeyword(), "Can't use 'super' outside of a class.");
+            diagnostics.error(expr.getKeyword(), "Can't use 'super' outside of a class.");
         else if(currentClass != ClassType.SUBCLASS)
-            Jlox.error(expr.getKeyword(), "Can't use 'super' in a class with no superclass.");
+            diagnostics.error(expr.getKeyword(), "Can't use 'super' in a class with no superclass.");
         resolveLocal(expr, expr.getKeyword());
         return null;
     }
 
+    @Override
+    public Void visitIncrementExpr(Expr.Increment expr) {
+        resolve(expr.getVariable());
+        markAssigned(expr.getVariable().getName());
+        return null;
+    }
+
+    @Override
+    public Void visitCompareExpr(Expr.Compare expr) {
+        resolve(expr.getLeft());
+        resolve(expr.getRight());
+        return null;
+    }
+
+    @Override
+    public Void visitUpdateFieldExpr(Expr.UpdateField expr) {
+        resolve(expr.getValue());
+        resolve(expr.getObject());
+        return null;
+    }
+
     @Override
     public void visitExpressionStmt(Stmt.Expression stmt) {
         resolve(stmt.getExpression());
@@ -141,8 +179,12 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor {
 
     @Override
     public void visitBlockStmt(Stmt.Block stmt) {
+        if(!stmt.isScoped()){
+            resolveAll(stmt.getStatements());
+            return;
+        }
         beginScope();
-        resolve(stmt.getStatements());
+        resolveAll(stmt.getStatements());
         endScope();
     }
 
@@ -159,6 +201,43 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor {
         resolve(stmt.getBody());
     }
 
+    @Override
+    public void visitForStmt(Stmt.For stmt) {
+        if(stmt.getInitializer() == null){
+            resolve(stmt.getCondition());
+            resolve(stmt.getBody());
+            if(stmt.getIncrement() != null) resolve(stmt.getIncrement());
+            return;
+        }
+
+        beginScope();
+        var scope = scopes.get(scopes.size() - 1);
+        resolve(stmt.getInitializer());
+        resolve(stmt.getCondition());
+
+        readScopes.remove(scope);
+        resolve(stmt.getBody());
+        stmt.setCounterRead(readScopes.contains(scope));
+        stmt.setCounted(isCountedLoop(stmt) && !assignedScopes.contains(scope));
+
+        if(stmt.getIncrement() != null) resolve(stmt.getIncrement());
+        endScope();
+    }
+
+    private boolean isCountedLoop(Stmt.For stmt){
+        if(!(stmt.getInitializer() instanceof Stmt.Var var)
+                || !(var.getInitializer() instanceof Expr.Literal start) || !(start.getValue() instanceof Long))
+            return false;
+
+        Symbol counter = var.getIdentifier().getSymbol();
+        return stmt.getCondition() instanceof Expr.Compare condition
+                && condition.getLeft().getName().getSymbol() == counter
+                && !(condition.getRight() instanceof Expr.Variable bound && bound.getName().getSymbol() == counter)
+                && stmt.getIncrement() instanceof Expr.Increment increment
+                && increment.getVariable().getName().getSymbol() == counter
+                && increment.getConstant() instanceof Long;
+    }
+
     @Override
     public void visitFunStmt(Stmt.Function stmt) {
         declare(stmt.getName());
@@ -170,10 +249,10 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor {
     @Override
     public void visitReturnStmt(Stmt.Return stmt) {
         if(currentFunction == FunctionType.NONE)
-            Jlox.error(stmt.getKeyword(), "Can't return from top-level code.");
+            diagnostics.error(stmt.getKeyword(), "Can't return from top-level code.");
         if(stmt.getValue() != null){
             if (currentFunction == FunctionType.INITIALIZER)
-                Jlox.error(stmt.getKeyword(), "Can't return a value from an initializer");
+                diagnostics.error(stmt.getKeyword(), "Can't return a value from an initializer");
             resolve(stmt.getValue());
         }
     }
@@ -187,7 +266,7 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor {
 
         if(stmt.getSuperClass() != null){
             if(stmt.getName().getLexeme().equals(stmt.getSuperClass().getName().getLexeme()))
-                Jlox.error(stmt.getSuperClass().getName(), "A class can't inherit from itself");
+                diagnostics.error(stmt.getSuperClass().getName(), "A class can't inherit from itself");
             currentClass = ClassType.SUBCLASS;
             resolve(stmt.getSuperClass());
             beginScope();
@@ -224,7 +303,9 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor {
     }
 
     private void endScope(){
-        scopes.remove(scopes.size() - 1);
+        var scope = scopes.remove(scopes.size() - 1);
+        readScopes.remove(scope);
+        assignedScopes.remove(scope);
     }
 
     private void declare(Token identifier){
@@ -232,7 +313,7 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor {
 
         var scope = scopes.get(scopes.size() - 1);
         if(scope.containsKey(identifier.getLexeme()))
-            Jlox.error(identifier, "Already defined variable with this name in this scope.");
+            diagnostics.error(identifier, "Already defined variable with this name in this scope.");
         scope.put(identifier.getLexeme(), false);
     }
 
@@ -247,7 +328,19 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor {
         for(int i = scopes.size() - 1; i >= 0; i--){
             var scope = scopes.get(i);
             if(scope.containsKey(name.getLexeme())){
-                interpreter.resolve(expr, scopes.size() - 1 - i);
+                expr.setDepth(scopes.size() - 1 - i);
+                readScopes.add(scope);
+                return;
+            }
+        }
+        expr.setSlot(globalSlots.computeIfAbsent(name.getSymbol(), symbol -> globalSlots.size()));
+    }
+
+    private void markAssigned(Token name){
+        for(int i = scopes.size() - 1; i >= 0; i--){
+            var scope = scopes.get(i);
+            if(scope.containsKey(name.getLexeme())){
+                assignedScopes.add(scope);
                 return;
             }
         }
@@ -262,7 +355,7 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor {
             declare(param);
             define(param);
         }
-        resolve(function.getBody());
+        resolveAll(function.getBody());
         endScope();
 
         currentFunction = enclosingFunction;
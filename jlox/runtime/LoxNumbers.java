@@ -0,0 +1,82 @@
+package jlox.runtime;
+
+// Lox has one number type, represented internally as either a Long or a Double.
+// A Long is only used for integers within ±2^53, where double arithmetic is exact, so integer operations
+// give the same results as the double operations they replace. Anything else, including -0, is a Double.
+public final class LoxNumbers {
+
+    private static final long MAX_EXACT = 1L << 53;
+    private static final int CACHE_LOW = -256;
+    private static final int CACHE_HIGH = 4096;
+    private static final Long[] CACHE = new Long[CACHE_HIGH - CACHE_LOW + 1];
+
+    static {
+        for(int i = 0; i < CACHE.length; i++)
+            CACHE[i] = (long) (i + CACHE_LOW);
+    }
+
+    private LoxNumbers() {}
+
+    public static boolean isNumber(Object value){
+        return value instanceof Long || value instanceof Double;
+    }
+
+    public static double toDouble(Object value){
+        return value instanceof Long number ? number : (Double) value;
+    }
+
+    public static Object box(long value){
+        if(value >= CACHE_LOW && value <= CACHE_HIGH) return CACHE[(int) (value - CACHE_LOW)];
+        return value;
+    }
+
+    public static Object fromDouble(double value){
+        long integral = (long) value;
+        if(integral == value && Math.abs(integral) <= MAX_EXACT && (integral != 0 || 1 / value > 0))
+            return box(integral);
+        return value;
+    }
+
+    // Operands are always within ±2^53, so none of these can overflow a long before the range check.
+    public static Object add(long left, long right){
+        return exact(left + right);
+    }
+
+    public static Object subtract(long left, long right){
+        return exact(left - right);
+    }
+
+    public static Object multiply(long left, long right){
+        long result = left * right;
+        if(Math.multiplyHigh(left, right) != (result >> 63)) return (double) left * (double) right;
+        if(result == 0 && (left < 0 || right < 0)) return -0.0;
+        return exact(result);
+    }
+
+    public static Object divide(long left, long right){
+        if(right == 0 || left % right != 0) return (double) left / (double) right;
+        if(left == 0 && right < 0) return -0.0;
+        return box(left / right);
+    }
+
+    public static Object negate(long value){
+        if(value == 0) return -0.0;
+        return box(-value);
+    }
+
+    public static boolean equal(Object left, Object right){
+        if(left instanceof Long && right instanceof Long) return left.equals(right);
+        return Double.compare(toDouble(left), toDouble(right)) == 0;
+    }
+
+    // The same text as the equal Double, which from 1e7 on is in E notation.
+    public static String format(long value){
+        if(Math.abs(value) < 1e7) return Long.toString(value);
+        return String.valueOf((double) value);
+    }
+
+    private static Object exact(long value){
+        if(Math.abs(value) <= MAX_EXACT) return box(value);
+        return (double) value;
+    }
+}
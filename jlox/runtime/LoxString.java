@@ -0,0 +1,99 @@
+package jlox.runtime;
+
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+
+// The runtime string value. Concatenation builds a rope node in constant time; the characters
+// are only copied into a flat String when the text is needed, and the rope is dropped then.
+// Length, blankness and hash are cached.
+public final class LoxString implements Comparable<LoxString> {
+
+    private static final int FLAT_CONCAT_LIMIT = 64;
+
+    private record Concat(LoxString left, LoxString right) {}
+
+    // A String once flat, a Concat before; always replaced as a whole so readers on other threads see a consistent value.
+    private volatile Object content;
+    private final int length;
+    private final boolean blank;
+    private int hash;
+
+    private LoxString(Object content, int length, boolean blank) {
+        this.content = content;
+        this.length = length;
+        this.blank = blank;
+    }
+
+    public static LoxString of(String text){
+        return new LoxString(text, text.length(), text.isBlank());
+    }
+
+    public LoxString concat(LoxString other){
+        if(other.length == 0) return this;
+        if(length == 0) return other;
+        if(length + other.length <= FLAT_CONCAT_LIMIT)
+            return of(toString().concat(other.toString()));
+        if(length + other.length < 0)
+            throw new OutOfMemoryError("String too long.");
+        return new LoxString(new Concat(this, other), length + other.length, blank && other.blank);
+    }
+
+    public int length(){
+        return length;
+    }
+
+    public boolean isBlank(){
+        return blank;
+    }
+
+    // Visits the flat pieces of this string in order without flattening it.
+    public void forEachPart(Consumer<String> action){
+        if(content instanceof String flat){
+            action.accept(flat);
+            return;
+        }
+        ArrayDeque<LoxString> pending = new ArrayDeque<>();
+        pending.push(this);
+        while(!pending.isEmpty()){
+            Object part = pending.pop().content;
+            if(part instanceof Concat concat){
+                pending.push(concat.right());
+                pending.push(concat.left());
+            }
+            else action.accept((String) part);
+        }
+    }
+
+    @Override
+    public String toString() {
+        if(content instanceof String flat) return flat;
+        StringBuilder builder = new StringBuilder(length);
+        forEachPart(builder::append);
+        String flat = builder.toString();
+        content = flat;
+        return flat;
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if(h == 0){
+            h = toString().hashCode();
+            hash = h;
+        }
+        return h;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if(this == other) return true;
+        if(!(other instanceof LoxString string) || string.length != length) return false;
+        if(hash != 0 && string.hash != 0 && hash != string.hash) return false;
+        return toString().equals(string.toString());
+    }
+
+    @Override
+    public int compareTo(LoxString other) {
+        return toString().compareTo(other.toString());
+    }
+}
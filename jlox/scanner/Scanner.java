@@ -1,6 +1,8 @@
 package jlox.scanner;
 
-import jlox.Jlox;
+import jlox.error.Diagnostics;
+import jlox.runtime.LoxNumbers;
+import jlox.runtime.LoxString;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -9,34 +11,41 @@ import java.util.Map;
 
 public class Scanner {
     private final String source;
+    private final Diagnostics diagnostics;
     private final List<Token> tokens = new ArrayList<>();
     private int start = 0;
     private int current = 0;
     private int line = 1;
 
-    private static final Map<String, TokenType> keywords;
+    // Keyed by symbol, so identifiers and keywords are both looked up straight from the source text.
+    private static final Map<Symbol, TokenType> keywords;
 
     static {
         keywords = new HashMap<>();
-        keywords.put("and", TokenType.AND);
-        keywords.put("class", TokenType.CLASS);
-        keywords.put("else", TokenType.ELSE);
-        keywords.put("false", TokenType.FALSE);
-        keywords.put("for", TokenType.FOR);
-        keywords.put("fun", TokenType.FUN);
-        keywords.put("if", TokenType.IF);
-        keywords.put("nil", TokenType.NIL);
-        keywords.put("or", TokenType.OR);
-        keywords.put("return", TokenType.RETURN);
-        keywords.put("super", TokenType.SUPER);
-        keywords.put("this", TokenType.THIS);
-        keywords.put("true", TokenType.TRUE);
-        keywords.put("var", TokenType.VAR);
-        keywords.put("while", TokenType.WHILE);
+        keywords.put(Symbol.of("and"), TokenType.AND);
+        keywords.put(Symbol.of("class"), TokenType.CLASS);
+        keywords.put(Symbol.of("else"), TokenType.ELSE);
+        keywords.put(Symbol.of("false"), TokenType.FALSE);
+        keywords.put(Symbol.of("for"), TokenType.FOR);
+        keywords.put(Symbol.of("fun"), TokenType.FUN);
+        keywords.put(Symbol.of("if"), TokenType.IF);
+        keywords.put(Symbol.of("nil"), TokenType.NIL);
+        keywords.put(Symbol.of("or"), TokenType.OR);
+        keywords.put(Symbol.of("return"), TokenType.RETURN);
+        keywords.put(Symbol.SUPER, TokenType.SUPER);
+        keywords.put(Symbol.THIS, TokenType.THIS);
+        keywords.put(Symbol.of("true"), TokenType.TRUE);
+        keywords.put(Symbol.of("var"), TokenType.VAR);
+        keywords.put(Symbol.of("while"), TokenType.WHILE);
     }
 
     public Scanner(String source){
+        this(source, new Diagnostics());
+    }
+
+    public Scanner(String source, Diagnostics diagnostics){
         this.source = source;
+        this.diagnostics = diagnostics;
     }
 
     public List<Token> scanTokens(){
@@ -83,7 +92,7 @@ public class Scanner {
                 else if(isAlpha(ch)){
                     scanIdentifier();
                 }
-                else Jlox.error(line, "Unexpected Character.");
+                else diagnostics.error(line, "Unexpected Character.");
             }
         }
     }
@@ -111,12 +120,12 @@ public class Scanner {
             advance();
         }
         if(isAtEnd()){
-            Jlox.error(line, "Unterminated string.");
+            diagnostics.error(line, "Unterminated string.");
             return;
         }
         advance();
         String str = source.substring(start + 1, current - 1);
-        addToken(TokenType.STRING, str);
+        addToken(TokenType.STRING, LoxString.of(str));
     }
 
     private void scanNumber(){
@@ -125,14 +134,16 @@ public class Scanner {
             advance();
             while (isDigit(peek())) advance();
         }
-        addToken(TokenType.NUMBER, Double.parseDouble(source.substring(start, current)));
+        addToken(TokenType.NUMBER, LoxNumbers.fromDouble(Double.parseDouble(source.substring(start, current))));
     }
 
     private void scanIdentifier(){
         while(isAlphaNumeric(peek())) advance();
-        String text = source.substring(start, current);
-        TokenType type = keywords.getOrDefault(text, TokenType.IDENTIFIER);
-        addToken(type);
+        Symbol symbol = Symbol.of(source, start, current);
+        TokenType type = keywords.getOrDefault(symbol, TokenType.IDENTIFIER);
+        if(type == TokenType.IDENTIFIER || type == TokenType.THIS || type == TokenType.SUPER)
+            tokens.add(new Token(type, symbol.getName(), null, line, symbol));
+        else tokens.add(new Token(type, symbol.getName(), null, line));
     }
 
     private boolean match(char expected){
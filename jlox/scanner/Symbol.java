@@ -0,0 +1,97 @@
+package jlox.scanner;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+
+// An interned identifier. There is exactly one Symbol per name, so symbols compare by identity
+// and their hash is computed once, when the name is first interned. The table only holds symbols
+// weakly: names that no code, global or field uses any more are dropped, so a long session that
+// sees many different identifiers does not grow without bound.
+public final class Symbol {
+
+    private static final int RECENT_SIZE = 1024;
+
+    private static final ConcurrentHashMap<String, Entry> table = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<Symbol> released = new ReferenceQueue<>();
+    // The last symbol looked up from source text per hash bucket. It keeps at most RECENT_SIZE symbols alive.
+    // Threads may race on a slot, but a Symbol's fields are final, so a reader sees either symbol whole.
+    private static final Symbol[] recent = new Symbol[RECENT_SIZE];
+
+    public static final Symbol THIS = of("this");
+    public static final Symbol SUPER = of("super");
+    public static final Symbol INIT = of("init");
+
+    private final String name;
+    private final int hash;
+
+    private Symbol(String name) {
+        this.name = name;
+        this.hash = name.hashCode();
+    }
+
+    public static Symbol of(String name){
+        Entry entry = table.get(name);
+        Symbol symbol = entry != null ? entry.get() : null;
+        return symbol != null ? symbol : intern(name);
+    }
+
+    // The symbol for source[start, end), which the scanner looks up without copying the name out of the
+    // source, unless the name was not among the recently scanned ones.
+    public static Symbol of(String source, int start, int end){
+        int length = end - start;
+        int hash = 0;
+        for(int i = start; i < end; i++)
+            hash = 31 * hash + source.charAt(i);
+        int slot = (hash ^ (hash >>> 16)) & (RECENT_SIZE - 1);
+        Symbol symbol = recent[slot];
+        if(symbol != null && symbol.hash == hash && symbol.name.length() == length
+                && symbol.name.regionMatches(0, source, start, length))
+            return symbol;
+        symbol = of(source.substring(start, end));
+        recent[slot] = symbol;
+        return symbol;
+    }
+
+    // The new symbol stays strongly reachable from here until it is returned, so the loop ends at the latest
+    // on its second pass, when a cleared entry is replaced by it.
+    private static Symbol intern(String name){
+        expungeReleased();
+        Symbol created = new Symbol(name);
+        while(true){
+            Entry entry = table.compute(name, (key, existing) ->
+                    existing != null && existing.get() != null ? existing : new Entry(created));
+            Symbol symbol = entry.get();
+            if(symbol != null) return symbol;
+        }
+    }
+
+    private static void expungeReleased(){
+        for(Object entry; (entry = released.poll()) != null;)
+            table.remove(((Entry) entry).name, entry);
+    }
+
+    private static final class Entry extends WeakReference<Symbol> {
+
+        private final String name;
+
+        Entry(Symbol symbol) {
+            super(symbol, released);
+            this.name = symbol.name;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
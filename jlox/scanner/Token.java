@@ -8,11 +8,18 @@ public class Token {
 
     final private int line;
 
+    final private Symbol symbol;
+
     Token(TokenType type, String lexeme, Object literal, int line){
+        this(type, lexeme, literal, line, null);
+    }
+
+    Token(TokenType type, String lexeme, Object literal, int line, Symbol symbol){
         this.type = type;
         this.lexeme = lexeme;
         this.literal = literal;
         this.line = line;
+        this.symbol = symbol;
     }
 
     public String toString(){
@@ -34,4 +41,8 @@ public class Token {
     public String getLexeme(){
         return lexeme;
     }
+
+    public Symbol getSymbol(){
+        return symbol;
+    }
 }
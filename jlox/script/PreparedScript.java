@@ -0,0 +1,64 @@
+package jlox.script;
+
+import jlox.interpreter.ExecutionLimits;
+import jlox.interpreter.Instrumentation;
+import jlox.interpreter.Interpreter;
+import jlox.interpreter.InterpreterListener;
+import jlox.interpreter.OutputSink;
+import jlox.parser.Stmt;
+
+import java.util.List;
+import java.util.Map;
+
+// A scanned, parsed and resolved program. Runs only write the AST to remember which function declaration a
+// call site last checked, which is the same for every run, so one instance can be executed any number of
+// times, from any number of threads.
+public class PreparedScript {
+
+    private final List<Stmt> statements;
+
+    public PreparedScript(List<Stmt> statements) {
+        this.statements = List.copyOf(statements);
+    }
+
+    public Interpreter execute(){
+        return execute(Map.of());
+    }
+
+    public Interpreter execute(Map<String, Object> inputs){
+        return execute(inputs, ExecutionLimits.UNLIMITED);
+    }
+
+    // Runs the script against fresh globals, with each input defined as a global variable.
+    // A RuntimeError, or a LimitExceededError once a limit is hit, is thrown to the caller instead of being reported.
+    // Tasks the script spawned and did not finish are stopped before this returns.
+    public Interpreter execute(Map<String, Object> inputs, ExecutionLimits limits){
+        return execute(inputs, limits, OutputSink.STDOUT);
+    }
+
+    public Interpreter execute(Map<String, Object> inputs, ExecutionLimits limits, OutputSink output){
+        return run(new Interpreter(), inputs, limits, output);
+    }
+
+    // Runs on an interpreter that reports statements, calls and assignments to the listener.
+    public Interpreter execute(Map<String, Object> inputs, ExecutionLimits limits, OutputSink output, InterpreterListener listener){
+        return run(Instrumentation.newInterpreter(listener), inputs, limits, output);
+    }
+
+    private Interpreter run(Interpreter interpreter, Map<String, Object> inputs, ExecutionLimits limits, OutputSink output){
+        interpreter.setLimits(limits);
+        interpreter.setOutput(output);
+        inputs.forEach(interpreter::defineGlobal);
+        try{
+            interpreter.execute(statements);
+        }
+        finally {
+            interpreter.stopTasks();
+        }
+        return interpreter;
+    }
+
+    public List<Stmt> getStatements() {
+        return statements;
+    }
+}
@@ -0,0 +1,86 @@
+package jlox;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs the command line in a fresh JVM, since it exits and its class loading is process-wide.
+class JloxTest {
+
+    private record Result(int status, String output) {
+    }
+
+    private static Result jlox(String... args) throws IOException, InterruptedException {
+        return run("", args);
+    }
+
+    private static Result repl(String... lines) throws IOException, InterruptedException {
+        return run(String.join("\n", lines) + "\n", "jlox.Jlox");
+    }
+
+    private static Result run(String input, String... args) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>(List.of(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path")));
+        command.addAll(List.of(args));
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        try(var stdin = process.getOutputStream()){
+            stdin.write(input.getBytes());
+        }
+        String output = new String(process.getInputStream().readAllBytes());
+        assertTrue(process.waitFor(30, TimeUnit.SECONDS));
+        return new Result(process.exitValue(), output);
+    }
+
+    @Test
+    void plainRunsDoNotLoadTheInstrumentedInterpreter(@TempDir Path dir) throws Exception {
+        Path script = Files.writeString(dir.resolve("one.lox"), "print(1);");
+        Result plain = jlox("-verbose:class", "jlox.Jlox", script.toString());
+        assertEquals(0, plain.status());
+        assertFalse(plain.output().contains("jlox.interpreter.InstrumentedInterpreter"));
+
+        Result traced = jlox("-verbose:class", "jlox.Jlox", "--trace", script.toString());
+        assertEquals(0, traced.status());
+        assertTrue(traced.output().contains("jlox.interpreter.InstrumentedInterpreter"));
+    }
+
+    @Test
+    void replLinesCanAwaitTasksSpawnedByEarlierLines() throws Exception {
+        Result result = repl("var c = channel(1);",
+                "fun wait() { return receive(c) + 1; }",
+                "var t = spawn(wait);",
+                "send(c, 41);",
+                "println(await(t));");
+        assertEquals(0, result.status(), result.output());
+        assertTrue(result.output().contains("42"), result.output());
+        assertFalse(result.output().contains("Task stopped"), result.output());
+    }
+
+    @Test
+    void invalidDeepRecursionLimitsPrintTheUsage(@TempDir Path dir) throws Exception {
+        Path script = Files.writeString(dir.resolve("one.lox"), "print(1);");
+        for(String limit : new String[]{"deep", "0", "-5", "99999999999"}){
+            Result result = jlox("jlox.Jlox", "--deep-recursion", limit, script.toString());
+            assertEquals(64, result.status(), limit);
+            assertTrue(result.output().contains("Expected a positive integer but got '" + limit + "'."), limit);
+            assertTrue(result.output().contains("Usage: java Jlox"), limit);
+        }
+        assertEquals(64, jlox("jlox.Jlox", "--deep-recursion").status());
+    }
+
+    @Test
+    void deepRecursionRunsPastTheThreadStack(@TempDir Path dir) throws Exception {
+        Path script = Files.writeString(dir.resolve("deep.lox"),
+                "fun down(n) { if (n == 0) return 0; return 1 + down(n - 1); } print(down(20000));");
+        Result result = jlox("jlox.Jlox", "--deep-recursion", "100000", script.toString());
+        assertEquals(0, result.status(), result.output());
+        assertEquals("20000", result.output().strip());
+    }
+}
@@ -0,0 +1,131 @@
+package jlox.interpreter;
+
+import jlox.Jlox;
+import jlox.error.LimitExceededError;
+import jlox.error.RuntimeError;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExecutionLimitsTest {
+
+    private static final String TWENTY_TASKS = """
+            fun work() { var n = 0; for (var i = 0; i < 900000; i = i + 1) n = n + 1; return n; }
+            var tasks = list();
+            for (var t = 0; t < 20; t = t + 1) push(tasks, spawn(work));
+            var total = 0;
+            for (var t = 0; t < 20; t = t + 1) total = total + await(get(tasks, t));
+            """;
+
+    private static final ExecutionLimits HALF_SECOND =
+            new ExecutionLimits(Long.MAX_VALUE, 500, Integer.MAX_VALUE, Long.MAX_VALUE);
+
+    private static Interpreter run(String source, ExecutionLimits limits){
+        return Jlox.prepare(source).execute(Map.of(), limits);
+    }
+
+    @Test
+    void forksShareTheStepBudget() {
+        LimitExceededError error = assertThrows(LimitExceededError.class,
+                () -> run(TWENTY_TASKS, new ExecutionLimits(1_000_000, Long.MAX_VALUE, Integer.MAX_VALUE, Long.MAX_VALUE)));
+        assertEquals("Step limit of 1000000 exceeded.", error.getMessage());
+    }
+
+    @Test
+    void forksWithinTheBudgetComplete() {
+        Interpreter interpreter = run(TWENTY_TASKS, new ExecutionLimits(20_000_000, Long.MAX_VALUE, Integer.MAX_VALUE, Long.MAX_VALUE));
+        assertEquals(18_000_000L, interpreter.getGlobal("total"));
+    }
+
+    @Test
+    void forksShareTheAllocationBudget() {
+        String source = """
+                class Point {}
+                fun work() { for (var i = 0; i < 2000; i = i + 1) Point(); }
+                var tasks = list();
+                for (var t = 0; t < 20; t = t + 1) push(tasks, spawn(work));
+                for (var t = 0; t < 20; t = t + 1) await(get(tasks, t));
+                """;
+        LimitExceededError error = assertThrows(LimitExceededError.class,
+                () -> run(source, new ExecutionLimits(Long.MAX_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE, 10_000)));
+        assertEquals("Allocation limit of 10000 exceeded.", error.getMessage());
+    }
+
+    @Test
+    void eachExecutionStartsWithAFreshBudget() {
+        Interpreter interpreter = new Interpreter();
+        interpreter.setLimits(new ExecutionLimits(100_000, Long.MAX_VALUE, Integer.MAX_VALUE, Long.MAX_VALUE));
+        var statements = Jlox.prepare("for (var i = 0; i < 50000; i = i + 1) {}").getStatements();
+        for(int i = 0; i < 5; i++)
+            interpreter.execute(statements);
+    }
+
+    @Test
+    void timeoutsTooLongForNanosecondsAreNoTimeout() {
+        for(long timeout : new long[]{10_000_000_000_000L, Long.MAX_VALUE - 1}){
+            Interpreter interpreter = run("var n = 0; for (var i = 0; i < 5000; i = i + 1) n = n + 1;",
+                    new ExecutionLimits(Long.MAX_VALUE, timeout, Integer.MAX_VALUE, Long.MAX_VALUE));
+            assertEquals(5000L, interpreter.getGlobal("n"));
+        }
+    }
+
+    @Test
+    void receiveOnAnEmptyChannelStopsAtTheDeadline() {
+        LimitExceededError error = assertTimeoutPreemptively(Duration.ofSeconds(5), () -> assertThrows(
+                LimitExceededError.class, () -> run("var c = channel(1);\nreceive(c);", HALF_SECOND)));
+        assertEquals("Time limit of 500ms exceeded.", error.getMessage());
+        assertEquals(2, error.getToken().getLine());
+    }
+
+    @Test
+    void sendOnAFullChannelStopsAtTheDeadline() {
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> assertThrows(
+                LimitExceededError.class, () -> run("var c = channel(1); send(c, 1); send(c, 2);", HALF_SECOND)));
+    }
+
+    @Test
+    void awaitStopsAtTheDeadline() {
+        String source = "var c = channel(1); fun wait() { return receive(c); } await(spawn(wait));";
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> assertThrows(
+                LimitExceededError.class, () -> run(source, HALF_SECOND)));
+    }
+
+    @Test
+    void runningTasksAreStoppedWhenTheScriptFinishes() throws InterruptedException {
+        String source = "var n = 0; fun spin() { while (true) n = n + 1; } spawn(spin); spawn(spin);";
+        Interpreter interpreter = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> run(source, ExecutionLimits.UNLIMITED));
+        Object count = interpreter.getGlobal("n");
+        Thread.sleep(50);
+        assertEquals(count, interpreter.getGlobal("n"));
+    }
+
+    @Test
+    void blockedTasksAreStoppedWhenTheScriptFinishes() {
+        String source = "var c = channel(1); fun wait() { receive(c); } spawn(wait); spawn(wait);";
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> run(source, ExecutionLimits.UNLIMITED));
+    }
+
+    @Test
+    void tasksOutliveTheExecuteThatSpawnedThem() {
+        Interpreter interpreter = new Interpreter();
+        interpreter.execute(Jlox.prepare("var c = channel(1); fun wait() { return receive(c) + 1; } var t = spawn(wait);")
+                .getStatements());
+        interpreter.execute(Jlox.prepare("send(c, 41); var result = await(t);").getStatements());
+        assertEquals(42L, interpreter.getGlobal("result"));
+        interpreter.stopTasks();
+    }
+
+    @Test
+    void awaitingATaskAfterStopTasksFails() {
+        Interpreter interpreter = new Interpreter();
+        interpreter.execute(Jlox.prepare("fun spin() { while (true) {} } var t = spawn(spin);").getStatements());
+        assertTimeoutPreemptively(Duration.ofSeconds(5), interpreter::stopTasks);
+        RuntimeError error = assertThrows(RuntimeError.class,
+                () -> interpreter.execute(Jlox.prepare("await(t);").getStatements()));
+        assertEquals("Task stopped because its script finished.", error.getMessage());
+    }
+}
@@ -0,0 +1,53 @@
+package jlox.interpreter;
+
+import jlox.Jlox;
+import jlox.error.RuntimeError;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InstrumentedInterpreterTest {
+
+    @Test
+    void listenersSeeEveryCallEnterAndLeave() {
+        List<String> events = new ArrayList<>();
+        InterpreterListener listener = new InterpreterListener() {
+            @Override
+            public void callEntered(Interpreter interpreter, LoxCallable function, Object[] arguments) {
+                events.add("enter " + function);
+            }
+
+            @Override
+            public void callExited(Interpreter interpreter, LoxCallable function, Object result) {
+                events.add("exit " + function + " " + Interpreter.stringify(result));
+            }
+
+            @Override
+            public void callFailed(Interpreter interpreter, LoxCallable function, Throwable error) {
+                events.add("fail " + function + " " + error.getMessage());
+            }
+        };
+        RuntimeError error = assertThrows(RuntimeError.class, () -> Jlox.prepare("""
+                class Point { init(x) { this.x = x; } }
+                fun nothing() {}
+                fun fail() { return -nil; }
+                nothing();
+                Point(1);
+                fail();
+                """).execute(Map.of(), ExecutionLimits.UNLIMITED, OutputSink.STDOUT, listener));
+        assertEquals("Operand must be a number.", error.getMessage());
+        assertEquals(List.of(
+                "enter <Function> nothing",
+                "exit <Function> nothing nil",
+                "enter <Class> Point",
+                "enter <Function> init",
+                "exit <Function> init Point instance",
+                "exit <Class> Point Point instance",
+                "enter <Function> fail",
+                "fail <Function> fail Operand must be a number."), events);
+    }
+}
@@ -0,0 +1,38 @@
+package jlox.interpreter;
+
+import jlox.Jlox;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InterpreterStatsTest {
+
+    @Test
+    void countsAreCompleteOnceExecuteReturns() {
+        Interpreter interpreter = Jlox.prepare("""
+                fun down(n) { if (n == 0) return 0; return down(n - 1); }
+                down(49);
+                """).execute();
+        assertEquals(50, interpreter.getStats().calls());
+        assertEquals(50, interpreter.getStats().maxCallDepth());
+        assertEquals(0, interpreter.getCurrentCallDepth());
+    }
+
+    @Test
+    void runningTasksPublishTheirCountsBeforeTheyFinish() {
+        Interpreter interpreter = new Interpreter();
+        interpreter.execute(Jlox.prepare("""
+                var c = channel(1);
+                fun work() { var n = 0; for (var i = 0; i < 20000; i = i + 1) n = n + 1; return receive(c); }
+                var t = spawn(work);
+                """).getStatements());
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            while(interpreter.getStatementsExecuted() < 15000) Thread.sleep(1);
+        });
+        interpreter.execute(Jlox.prepare("send(c, 1); await(t);").getStatements());
+        assertTrue(interpreter.getStatementsExecuted() > 20000);
+        interpreter.stopTasks();
+    }
+}
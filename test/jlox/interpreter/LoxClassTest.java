@@ -0,0 +1,31 @@
+package jlox.interpreter;
+
+import jlox.Jlox;
+import jlox.error.RuntimeError;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoxClassTest {
+
+    @Test
+    void subclassesInheritTheInitializer() {
+        Interpreter interpreter = Jlox.prepare("""
+                class Point { init(x, y) { this.x = x; this.y = y; } }
+                class Named < Point { name() { return "p"; } }
+                var p = Named(3, 4);
+                var sum = p.x + p.y;
+                """).execute();
+        assertEquals(7L, interpreter.getGlobal("sum"));
+    }
+
+    @Test
+    void ownInitializerWinsOverTheInherited() {
+        RuntimeError error = assertThrows(RuntimeError.class, () -> Jlox.prepare("""
+                class Point { init(x, y) { this.x = x; this.y = y; } }
+                class Origin < Point { init() { super.init(0, 0); } }
+                Origin(1, 2);
+                """).execute());
+        assertEquals("Expected 0 arguments but got 2.", error.getMessage());
+    }
+}
@@ -0,0 +1,36 @@
+package jlox.interpreter;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import jlox.Jlox;
+import jlox.error.RuntimeError;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoxEventsTest {
+
+    @Test
+    void recordingsStartedAtRuntimeSeeEvents(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("lox.jfr");
+        try(Recording recording = new Recording()) {
+            recording.enable("jlox.RuntimeError");
+            recording.start();
+            assertTrue(LoxEvents.isRecording());
+            assertThrows(RuntimeError.class, () -> Jlox.prepare("-nil;").execute());
+            recording.stop();
+            recording.dump(file);
+        }
+        assertFalse(LoxEvents.isRecording());
+        List<RecordedEvent> errors = RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals("jlox.RuntimeError"))
+                .toList();
+        assertEquals(1, errors.size());
+        assertEquals(1, errors.get(0).getInt("line"));
+    }
+}
@@ -0,0 +1,55 @@
+package jlox.interpreter;
+
+import jlox.Jlox;
+import jlox.error.RuntimeError;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoxListTest {
+
+    private static Object result(String source){
+        return Jlox.prepare(source).execute().getGlobal("result");
+    }
+
+    @Test
+    void numbersSortAfterAStringWasReplaced() {
+        assertEquals("[1, 2.5, 3]", result("""
+                var xs = list(); push(xs, 3); push(xs, "b"); push(xs, 1);
+                set(xs, 1, 2.5);
+                var result = sort(xs);
+                """).toString());
+    }
+
+    @Test
+    void mixedListsAreRejected() {
+        RuntimeError error = assertThrows(RuntimeError.class,
+                () -> result("var xs = list(); push(xs, 1); push(xs, \"a\"); sort(xs);"));
+        assertEquals("Can only sort lists of numbers or lists of strings.", error.getMessage());
+    }
+
+    @Test
+    void tasksCanPushToASharedList() {
+        assertEquals(80_000L, result("""
+                var xs = list();
+                fun fill() { for (var i = 0; i < 10000; i = i + 1) push(xs, i); }
+                var tasks = list();
+                for (var t = 0; t < 8; t = t + 1) push(tasks, spawn(fill));
+                for (var t = 0; t < 8; t = t + 1) await(get(tasks, t));
+                var result = len(xs);
+                """));
+    }
+
+    @Test
+    void tasksCanPutToASharedDict() {
+        assertEquals(8_000L, result("""
+                var counts = dict();
+                fun fill(base) { for (var i = 0; i < 1000; i = i + 1) put(counts, base + i, i); }
+                fun task(base) { fun run() { fill(base); } return run; }
+                var tasks = list();
+                for (var t = 0; t < 8; t = t + 1) push(tasks, spawn(task(t * 1000)));
+                for (var t = 0; t < 8; t = t + 1) await(get(tasks, t));
+                var result = len(counts);
+                """));
+    }
+}
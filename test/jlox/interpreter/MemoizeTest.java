@@ -0,0 +1,75 @@
+package jlox.interpreter;
+
+import jlox.Jlox;
+import jlox.error.RuntimeError;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MemoizeTest {
+
+    private static String warnings(String source){
+        PrintStream err = System.err;
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(captured, true));
+        try{
+            Jlox.prepare(source).execute();
+        }
+        finally {
+            System.setErr(err);
+        }
+        return captured.toString();
+    }
+
+    private static String rejection(String source){
+        return assertThrows(RuntimeError.class, () -> Jlox.prepare(source).execute()).getMessage();
+    }
+
+    @Test
+    void nativesWithSideEffectsOrChangingResultsAreRejected() {
+        assertEquals("Can't memoize a native function with side effects or changing results.", rejection("memoize(clock);"));
+        assertEquals("Can't memoize a native function with side effects or changing results.", rejection("memoize(print);"));
+        assertEquals("Can't memoize a native function with side effects or changing results.", rejection("memoize(push);"));
+    }
+
+    @Test
+    void classesAreRejected() {
+        assertEquals("Can only memoize a function.", rejection("class Point {} memoize(Point);"));
+    }
+
+    @Test
+    void deterministicNativesAndPureFunctionsAreAccepted() {
+        assertEquals("", warnings("""
+                var size = memoize(len);
+                fun fib(n) { if (n < 2) return n; return fib(n - 1) + fib(n - 2); }
+                fib = memoize(fib);
+                fib(20);"""));
+    }
+
+    @Test
+    void callsWithMutableArgumentsAlwaysRun() {
+        Interpreter interpreter = Jlox.prepare("""
+                fun size(xs) { return len(xs); }
+                var s = memoize(size);
+                var xs = list();
+                var before = s(xs);
+                push(xs, 1);
+                var after = s(xs);
+                var hits = get(memoStats(s), "hits");
+                """).execute();
+        assertEquals(0L, interpreter.getGlobal("before"));
+        assertEquals(1L, interpreter.getGlobal("after"));
+        assertEquals(0L, interpreter.getGlobal("hits"));
+    }
+
+    @Test
+    void impureFunctionsAreMemoizedWithAWarning() {
+        assertTrue(warnings("var n = 0; fun count(x) { n = n + 1; return x; } memoize(count);")
+                .contains("Warning at 'count': Memoized function may have side effects"));
+        assertTrue(warnings("fun len(x) { print(x); return 0; } fun f(x) { return len(x); } memoize(f);")
+                .contains("Warning at 'f'"));
+    }
+}
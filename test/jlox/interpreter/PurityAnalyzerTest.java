@@ -0,0 +1,81 @@
+package jlox.interpreter;
+
+import jlox.Jlox;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PurityAnalyzerTest {
+
+    private static LoxFunction function(String source, String name){
+        return (LoxFunction) Jlox.prepare(source).execute().getGlobal(name);
+    }
+
+    @Test
+    void recursionAndPureNativesArePure() {
+        assertTrue(function("fun fib(n) { if (n < 2) return n; return fib(n - 1) + fib(n - 2); }", "fib").isPure());
+        assertTrue(function("""
+                fun f(x) {
+                    var total = 0;
+                    for (var i = 0; i < x; i = i + 1) { var step = len(list()); total = total + step; }
+                    return total;
+                }""", "f").isPure());
+        assertTrue(function("var size = len; fun f(x) { return size(x); }", "f").isPure());
+    }
+
+    @Test
+    void nestedParametersDoNotMakeOuterAssignmentsLocal() {
+        assertFalse(function("var y = 0; fun f(x) { fun g(y) { return y; } y = 1; return x; }", "f").isPure());
+    }
+
+    @Test
+    void blockVariablesDoNotOutliveTheirBlock() {
+        assertFalse(function("var t = 0; fun f(x) { { var t = 1; } t = 2; return x; }", "f").isPure());
+        assertFalse(function("var i = 0; fun f(x) { for (var i = 0; i < x; i = i + 1) {} i = i + 1; return x; }", "f").isPure());
+    }
+
+    @Test
+    void nestedFunctionsDoNotReplaceTheAnalyzedFunction() {
+        assertTrue(function("fun k(x) { fun g(y) { return y; } if (x < 1) return 0; return k(x - 1); }", "k").isPure());
+        assertFalse(function("fun k(x) { fun g(y) { return g(y); } return g(x); }", "k").isPure());
+    }
+
+    @Test
+    void userFunctionsNamedLikeNativesAreNotPure() {
+        assertFalse(function("var n = 0; fun len(x) { n = n + 1; return 0; } fun f(x) { return len(x); }", "f").isPure());
+        assertFalse(function("var n = 0; fun f(x) { fun len(y) { return y; } return len(x); }", "f").isPure());
+    }
+
+    @Test
+    void selfCallsMustReachTheSameFunction() {
+        assertFalse(function("""
+                fun f(x) { if (x < 1) return 0; return f(x - 1); }
+                var g = f;
+                fun noisy(x) { print(x); return 0; }
+                f = noisy;""", "g").isPure());
+        assertFalse(function("""
+                var calls = 0;
+                fun work(x) { calls = calls + 1; return x; }
+                class Worker { work(x) { return work(x); } }
+                var method = Worker().work;""", "method").isPure());
+    }
+
+    @Test
+    void clockIsPureButNotDeterministic() {
+        LoxFunction function = function("fun f(x) { return x + clock(); }", "f");
+        assertTrue(function.isPure());
+        assertFalse(function.isDeterministic());
+    }
+
+    @Test
+    void mapRunsImpureCallbacksSequentially() {
+        Interpreter interpreter = Jlox.prepare("""
+                var calls = 0;
+                fun len(x) { calls = calls + 1; return x; }
+                fun f(x) { return len(x); }
+                var xs = list();
+                for (var i = 0; i < 20000; i = i + 1) push(xs, i);
+                var ys = map(xs, f);""").execute();
+        assertEquals(20000L, interpreter.getGlobal("calls"));
+    }
+}
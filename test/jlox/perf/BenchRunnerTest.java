@@ -0,0 +1,53 @@
+package jlox.perf;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BenchRunnerTest {
+
+    @Test
+    void optionsWithoutAValueAreRejected() {
+        for(String option : new String[]{"--baseline", "--save-baseline", "--threshold", "--warmup", "--iterations"}){
+            IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                    () -> BenchRunner.fromArgs(new String[]{"bench", option}));
+            assertEquals("Missing value for " + option + ".", error.getMessage());
+        }
+    }
+
+    @Test
+    void invalidValuesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> BenchRunner.fromArgs(new String[]{"--warmup", "three"}));
+        assertThrows(IllegalArgumentException.class, () -> BenchRunner.fromArgs(new String[]{"--iterations", "0"}));
+        assertThrows(IllegalArgumentException.class, () -> BenchRunner.fromArgs(new String[]{"--threshold", "-5"}));
+        assertThrows(IllegalArgumentException.class, () -> BenchRunner.fromArgs(new String[]{"--itterations", "5"}));
+    }
+
+    @Test
+    void aSavedBaselineComparesAgainstTheNextRun(@TempDir Path dir) throws IOException {
+        Files.writeString(dir.resolve("sum.lox"), "var s = 0; for (var i = 0; i < 1000; i = i + 1) s = s + i;");
+        Path baseline = dir.resolve("baseline.json");
+        String[] quick = {dir.toString(), "--warmup", "0", "--iterations", "1"};
+
+        assertEquals(0, BenchRunner.fromArgs(append(quick, "--save-baseline", baseline.toString())).run());
+        String saved = Files.readString(baseline);
+        assertTrue(saved.contains("\"name\": \"sum\"") && saved.contains("\"name\": \"generated\""));
+
+        assertEquals(0, BenchRunner.fromArgs(append(quick, "--baseline", baseline.toString(), "--threshold", "1000")).run());
+
+        Files.writeString(baseline, saved.replaceAll("\"opsPerSecond\": [0-9.]+", "\"opsPerSecond\": 1e12"));
+        assertEquals(1, BenchRunner.fromArgs(append(quick, "--baseline", baseline.toString())).run());
+    }
+
+    private static String[] append(String[] args, String... more){
+        String[] all = new String[args.length + more.length];
+        System.arraycopy(args, 0, all, 0, args.length);
+        System.arraycopy(more, 0, all, args.length, more.length);
+        return all;
+    }
+}
@@ -0,0 +1,31 @@
+package jlox.resolver;
+
+import jlox.Jlox;
+import jlox.error.CompileError;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResolverTest {
+
+    @Test
+    void thisIsAllowedInMethodsOfSubclasses() {
+        Object area = Jlox.prepare("""
+                class Shape { init(side) { this.side = side; } }
+                class Square < Shape { area() { return this.side * this.side; } }
+                var area = Square(3).area();""").execute().getGlobal("area");
+        assertEquals(9L, area);
+    }
+
+    @Test
+    void errorsInsideBlocksAndFunctionsAreReported() {
+        assertEquals(List.of("[line 1] Error at 'this': Can't use 'this' outside of a class."),
+                assertThrows(CompileError.class, () -> Jlox.prepare("fun f() { return this; }")).getErrors());
+        assertEquals(List.of("[line 2] Error at 'return': Can't return from top-level code."),
+                assertThrows(CompileError.class, () -> Jlox.prepare("{\n  return 1;\n}")).getErrors());
+        assertEquals(List.of("[line 1] Error at 'a': Already defined variable with this name in this scope."),
+                assertThrows(CompileError.class, () -> Jlox.prepare("fun f() { var a = 1; var a = 2; }")).getErrors());
+    }
+}
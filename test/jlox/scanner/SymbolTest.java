@@ -0,0 +1,43 @@
+package jlox.scanner;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SymbolTest {
+
+    @Test
+    void rangesOfTheSourceInternToTheSameSymbol() {
+        String source = "count + count_2 * count";
+        Symbol count = Symbol.of("count");
+        assertSame(count, Symbol.of(source, 0, 5));
+        assertSame(count, Symbol.of(source, 18, 23));
+        assertSame(Symbol.of("count_2"), Symbol.of(source, 8, 15));
+        assertNotSame(count, Symbol.of(source, 8, 15));
+    }
+
+    @Test
+    void namesSharingARecentSlotStayDistinct() {
+        // "Aa" and "BB" have the same String hash.
+        String source = "Aa BB Aa";
+        Symbol first = Symbol.of(source, 0, 2);
+        Symbol second = Symbol.of(source, 3, 5);
+        assertEquals("Aa", first.getName());
+        assertEquals("BB", second.getName());
+        assertSame(first, Symbol.of(source, 6, 8));
+    }
+
+    @Test
+    void scannerSeparatesKeywordsFromIdentifiers() {
+        List<Token> tokens = new Scanner("var classy = this.class_;").scanTokens();
+        assertEquals(TokenType.VAR, tokens.get(0).getType());
+        assertEquals(TokenType.IDENTIFIER, tokens.get(1).getType());
+        assertSame(Symbol.of("classy"), tokens.get(1).getSymbol());
+        assertEquals(TokenType.THIS, tokens.get(3).getType());
+        assertSame(Symbol.THIS, tokens.get(3).getSymbol());
+        assertEquals("class_", tokens.get(5).getLexeme());
+        assertEquals(TokenType.IDENTIFIER, tokens.get(5).getType());
+    }
+}
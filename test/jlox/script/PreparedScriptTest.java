@@ -0,0 +1,157 @@
+package jlox.script;
+
+import jlox.Jlox;
+import jlox.error.CompileError;
+import jlox.error.RuntimeError;
+import jlox.interpreter.Interpreter;
+import jlox.parser.Expr;
+import jlox.parser.Stmt;
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PreparedScriptTest {
+
+    @Test
+    void syntaxErrorsAreReportedInTheException() {
+        CompileError error = assertThrows(CompileError.class, () -> Jlox.prepare("var = 1;\nprint(;"));
+        assertEquals(List.of("[line 1] Error at '=': Expected variable name.",
+                "[line 2] Error at ';': Expression expected."), error.getErrors());
+        assertTrue(error.getMessage().contains("Expected variable name."));
+    }
+
+    @Test
+    void scanningAndResolutionErrorsAreReportedInTheException() {
+        assertEquals(List.of("[line 1] Error : Unterminated string."),
+                assertThrows(CompileError.class, () -> Jlox.prepare("var s = \"open;")).getErrors());
+        assertEquals(List.of("[line 1] Error at 'return': Can't return from top-level code."),
+                assertThrows(CompileError.class, () -> Jlox.prepare("return 1;")).getErrors());
+    }
+
+    @Test
+    void concurrentCompilationsKeepTheirOwnErrors() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try{
+            List<Future<?>> results = new ArrayList<>();
+            for(int i = 0; i < 200; i++){
+                boolean valid = i % 2 == 0;
+                results.add(pool.submit(() -> {
+                    if(valid) return Jlox.prepare("var x = 1; fun f(a) { return a + x; } f(2);");
+                    return assertThrows(CompileError.class, () -> Jlox.prepare("var x = ;")).getErrors();
+                }));
+            }
+            for(Future<?> result : results)
+                result.get(10, TimeUnit.SECONDS);
+        }
+        finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void hostNumbersFollowTheLoxNumberModel() {
+        Interpreter run = Jlox.prepare("var sum = a + b;").execute(Map.of("a", 42, "b", 42.0, "c", 2.5f, "d", (short) 3));
+        assertEquals(42L, run.getGlobal("a"));
+        assertEquals(42L, run.getGlobal("b"));
+        assertEquals(2.5, run.getGlobal("c"));
+        assertEquals(3L, run.getGlobal("d"));
+        assertEquals(84L, run.getGlobal("sum"));
+    }
+
+    @Test
+    void concurrentRunsKeepTheirOwnGlobals() throws Exception {
+        PreparedScript script = Jlox.prepare("""
+                var total = 0;
+                fun add(x) { total = total + x; }
+                for (var i = 0; i < 1000; i = i + 1) add(n);""");
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try{
+            List<Future<Interpreter>> runs = new ArrayList<>();
+            for(int n = 0; n < 64; n++){
+                Map<String, Object> inputs = Map.of("n", n);
+                runs.add(pool.submit(() -> script.execute(inputs)));
+            }
+            for(int n = 0; n < runs.size(); n++)
+                assertEquals(1000L * n, runs.get(n).get(10, TimeUnit.SECONDS).getGlobal("total"));
+        }
+        finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void theScriptDoesNotKeepARunsGlobalsAlive() throws InterruptedException {
+        PreparedScript script = Jlox.prepare("var seen = marker; seen = marker;");
+        Object marker = new Object();
+        WeakReference<Object> reference = new WeakReference<>(marker);
+        script.execute(Map.of("marker", marker));
+        marker = null;
+        for(int i = 0; i < 50 && reference.get() != null; i++){
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(reference.get());
+        assertNotNull(script.getStatements());
+    }
+
+    @Test
+    void globalSlotsAreNumberedPerScript() {
+        StringBuilder large = new StringBuilder();
+        for(int i = 0; i < 1000; i++)
+            large.append("var global").append(i).append(" = ").append(i).append(";\n");
+        Jlox.prepare(large.toString());
+
+        List<Stmt> statements = Jlox.prepare("var only = 1; only;").getStatements();
+        Expr.Variable reference = (Expr.Variable) ((Stmt.Expression) statements.get(1)).getExpression();
+        assertEquals(0, reference.getSlot());
+    }
+
+    @Test
+    void scriptsWithDifferentSlotsShareOneInterpreter() {
+        Interpreter interpreter = new Interpreter();
+        interpreter.execute(Jlox.prepare("var a = 1; var b = 2;").getStatements());
+        interpreter.execute(Jlox.prepare("var c = b; var d = a; a = 10;").getStatements());
+        interpreter.execute(Jlox.prepare("var e = a + c;").getStatements());
+        assertEquals(2L, interpreter.getGlobal("c"));
+        assertEquals(1L, interpreter.getGlobal("d"));
+        assertEquals(12L, interpreter.getGlobal("e"));
+    }
+
+    @Test
+    void callSitesDoNotKeepARunsNativesOrClassesAlive() throws InterruptedException {
+        PreparedScript script = Jlox.prepare("class Point { init(x) {} } for (var i = 0; i < 3; i = i + 1) { Point(i); len(list()); }");
+        Interpreter run = script.execute();
+        WeakReference<Object> point = new WeakReference<>(run.getGlobal("Point"));
+        WeakReference<Object> len = new WeakReference<>(run.getGlobal("len"));
+        run = null;
+        for(int i = 0; i < 50 && (point.get() != null || len.get() != null); i++){
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(point.get());
+        assertNull(len.get());
+        assertNotNull(script.getStatements());
+    }
+
+    @Test
+    void callSitesCheckEveryNewCallee() {
+        PreparedScript script = Jlox.prepare("""
+                fun one(x) { return x; }
+                fun two(x, y) { return x + y; }
+                var fs = list(); push(fs, one); push(fs, len); push(fs, two);
+                for (var i = 0; i < 3; i = i + 1) get(fs, i)(list());""");
+        for(int run = 0; run < 2; run++){
+            RuntimeError error = assertThrows(RuntimeError.class, script::execute);
+            assertEquals("Expected 2 arguments but got 1.", error.getMessage());
+        }
+    }
+}